@@ -179,11 +179,12 @@ public class DendronTest {
     }
 
     /**
-     * Run a single Dendron program. There are three phases.
+     * Run a single Dendron program. There are four phases.
      * <ol>
      *     <li>Redisplay the program in infix notation.</li>
      *     <li>Interpret the program.</li>
      *     <li>Show the Soros assembly code for this program.</li>
+     *     <li>Report how many instructions optimization saved.</li>
      * </ol>
      * <p>
      * Note that either of the first two phases could fail,
@@ -201,9 +202,27 @@ public class DendronTest {
 
         tree.compileTo( out );
 
+        reportInstructionCount( tree, out );
+
         out.flush();
     }
 
+    /**
+     * Show how many Soros instructions the program compiles to, with and
+     * without optimization.
+     * @param tree the parsed program
+     * @param out where the report goes
+     */
+    private static void reportInstructionCount( ParseTree tree, PrintWriter out ) {
+        tree.setOptimizing( false );
+        int written = tree.compile().size();
+        tree.setOptimizing( true );
+        int optimized = tree.compile().size();
+        out.println( "Instructions: " + optimized + " (" + written +
+                     " before optimization, " + ( written - optimized ) +
+                     " saved)" );
+    }
+
     /**
      * Run a whole set of tests from files containing Dendron code.
      * Abort the program if the directory doesn't work out.
@@ -0,0 +1,236 @@
+import dendron.ParseTree;
+import dendron.machine.Bytecode;
+import dendron.machine.FastSoros;
+import dendron.machine.InstructionReader;
+import dendron.machine.Peephole;
+import dendron.machine.Soros;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Time the Soros machine against {@link FastSoros} on long generated
+ * Dendron programs, and assembling them from text against loading them
+ * from {@link Bytecode}. Each program first gives every variable a value
+ * and then assigns random expressions over the variables and constants
+ * to them, so it never reads an uninitialized variable or divides by
+ * zero. Both cores, and the program loaded from bytecode, are checked to
+ * print the same thing before they are timed. Last, the program as
+ * written is timed on both cores with and without the {@link Peephole}
+ * superinstructions.
+ */
+public class SorosBenchmark {
+
+    /** number of variables in a generated program */
+    private static final int VARIABLES = 26;
+
+    /** how deeply generated expressions nest */
+    private static final int EXPRESSION_DEPTH = 4;
+
+    /**
+     * Generate a Dendron program.
+     * @param statements number of statements
+     * @param random the source of the program's shape
+     * @return the program's tokens
+     */
+    private static List< String > generate( int statements, Random random ) {
+        List< String > tokens = new LinkedList<>();
+        for ( int i = 0; i < statements; ++i ) {
+            tokens.add( ParseTree.ASSIGN );
+            if ( i < VARIABLES ) {
+                tokens.add( variable( i ) );
+                tokens.add( String.valueOf( random.nextInt( 100 ) ) );
+            }
+            else {
+                tokens.add( variable( random.nextInt( VARIABLES ) ) );
+                expression( EXPRESSION_DEPTH, random, tokens );
+            }
+        }
+        tokens.add( ParseTree.PRINT );
+        tokens.add( variable( 0 ) );
+        return tokens;
+    }
+
+    /**
+     * Generate an expression in prefix form. Division is always by a
+     * nonzero constant.
+     * @param depth how much deeper the expression may nest
+     * @param random the source of the expression's shape
+     * @param tokens where the tokens go
+     */
+    private static void expression( int depth, Random random, List< String > tokens ) {
+        int kind = depth == 0 ? 6 + random.nextInt( 2 ) : random.nextInt( 8 );
+        switch ( kind ) {
+            case 0, 1, 2 -> {
+                tokens.add( List.of( "+", "-", "*" ).get( kind ) );
+                expression( depth - 1, random, tokens );
+                expression( depth - 1, random, tokens );
+            }
+            case 3 -> {
+                tokens.add( "/" );
+                expression( depth - 1, random, tokens );
+                tokens.add( String.valueOf( 1 + random.nextInt( 9 ) ) );
+            }
+            case 4 -> {
+                tokens.add( "_" );
+                expression( depth - 1, random, tokens );
+            }
+            case 5 -> {
+                tokens.add( "%" );
+                expression( depth - 1, random, tokens );
+            }
+            case 6 -> tokens.add( variable( random.nextInt( VARIABLES ) ) );
+            default -> tokens.add( String.valueOf( random.nextInt( 100 ) ) );
+        }
+    }
+
+    /**
+     * @param i a variable number
+     * @return the variable's name
+     */
+    private static String variable( int i ) {
+        return "v" + (char)( 'a' + i );
+    }
+
+    /**
+     * Run something with standard output captured.
+     * @param body what to run
+     * @return everything it printed
+     */
+    private static String capture( Runnable body ) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream console = System.out;
+        System.setOut( new PrintStream( bytes ) );
+        try {
+            body.run();
+        }
+        finally {
+            System.setOut( console );
+        }
+        return bytes.toString();
+    }
+
+    /**
+     * Time a number of runs with standard output thrown away.
+     * @param runs how many times to run
+     * @param body what to run
+     * @return the average time of a run in milliseconds
+     */
+    private static double time( int runs, Runnable body ) {
+        PrintStream console = System.out;
+        System.setOut( new PrintStream( OutputStream.nullOutputStream() ) );
+        try {
+            long start = System.nanoTime();
+            for ( int i = 0; i < runs; ++i ) {
+                body.run();
+            }
+            return ( System.nanoTime() - start ) / 1e6 / runs;
+        }
+        finally {
+            System.setOut( console );
+        }
+    }
+
+    /**
+     * Run the benchmark.
+     * @param args optionally the number of statements per program
+     *             (default 100000) and the number of timed runs (default 20)
+     * @throws IOException if the bytecode can't be written
+     */
+    public static void main( String... args ) throws IOException {
+        int statements = args.length > 0 ? Integer.parseInt( args[ 0 ] ) : 100000;
+        int runs = args.length > 1 ? Integer.parseInt( args[ 1 ] ) : 20;
+
+        ParseTree tree = new ParseTree( generate( statements, new Random( 142 ) ) );
+        StringWriter assembly = new StringWriter();
+        tree.compileTo( new PrintWriter( assembly ) );
+        String text = assembly.toString();
+        ByteArrayOutputStream bytecode = new ByteArrayOutputStream();
+        tree.compileTo( bytecode );
+        byte[] bytes = bytecode.toByteArray();
+
+        // Getting a program ready to run: assembling text and translating
+        // it, against loading bytecode. Best of a few tries each.
+        List< Soros.Instruction > assembled = null;
+        FastSoros translated = null;
+        FastSoros loaded = null;
+        double fromText = Double.MAX_VALUE;
+        double fromBytecode = Double.MAX_VALUE;
+        for ( int i = 0; i < 5; ++i ) {
+            long start = System.nanoTime();
+            assembled = new ArrayList<>( InstructionReader.assemble( new Scanner( text ) ) );
+            translated = new FastSoros( assembled );
+            fromText = Math.min( fromText, ( System.nanoTime() - start ) / 1e6 );
+            start = System.nanoTime();
+            loaded = Bytecode.load( ByteBuffer.wrap( bytes ) );
+            fromBytecode = Math.min( fromBytecode, ( System.nanoTime() - start ) / 1e6 );
+        }
+        List< Soros.Instruction > program = assembled;
+        FastSoros fast = translated;
+        FastSoros fromFile = loaded;
+        System.out.printf( "%d statements, %d instructions%n", statements, fast.size() );
+        System.out.printf( "from text:     %8.1f ms to load %9d bytes%n", fromText, text.length() );
+        System.out.printf( "from bytecode: %8.1f ms to load %9d bytes%n", fromBytecode, bytes.length );
+
+        Soros soros = new Soros();
+        String expected = capture( () -> soros.execute( program ) );
+        if ( !expected.equals( capture( fast::execute ) ) ||
+                !expected.equals( capture( fromFile::execute ) ) ) {
+            System.out.println( "Outputs differ!" );
+            System.exit( 1 );
+        }
+
+        // warm up both cores before timing them
+        time( runs, () -> soros.execute( program ) );
+        time( runs, fast::execute );
+        double slow = time( runs, () -> soros.execute( program ) );
+        double quick = time( runs, fast::execute );
+        System.out.printf( "Soros:     %8.2f ms/run %8.1f M instr/s%n",
+                           slow, fast.size() / slow / 1e3 );
+        System.out.printf( "FastSoros: %8.2f ms/run %8.1f M instr/s (%.1fx)%n",
+                           quick, fast.size() / quick / 1e3, slow / quick );
+
+        // The peephole optimizer by itself, on the program as written.
+        tree.setOptimizing( false );
+        List< Soros.Instruction > plain = tree.compile();
+        List< Soros.Instruction > fused = Peephole.optimize( plain );
+        FastSoros fastPlain = new FastSoros( plain );
+        FastSoros fastFused = new FastSoros( fused );
+        String written = capture( () -> soros.execute( plain ) );
+        if ( !written.equals( capture( () -> soros.execute( fused ) ) ) ||
+                !written.equals( capture( fastFused::execute ) ) ) {
+            System.out.println( "Peephole outputs differ!" );
+            System.exit( 1 );
+        }
+        // Warm up all four, then take turns so that neither side of a
+        // comparison gets the later, hotter runs. Best round of each.
+        Runnable[] bodies = {
+                () -> soros.execute( plain ), () -> soros.execute( fused ),
+                fastPlain::execute, fastFused::execute };
+        double[] best = new double[ bodies.length ];
+        Arrays.fill( best, Double.MAX_VALUE );
+        for ( Runnable body : bodies ) {
+            time( runs, body );
+        }
+        for ( int round = 0; round < 5; ++round ) {
+            for ( int i = 0; i < bodies.length; ++i ) {
+                best[ i ] = Math.min( best[ i ], time( runs, bodies[ i ] ) );
+            }
+        }
+        double slowPlain = best[ 0 ];
+        double slowFused = best[ 1 ];
+        double quickPlain = best[ 2 ];
+        double quickFused = best[ 3 ];
+        System.out.printf( "peephole: %d instructions down to %d%n", plain.size(), fused.size() );
+        System.out.printf( "Soros:     %8.2f ms/run before, %8.2f after (%.2fx)%n",
+                           slowPlain, slowFused, slowPlain / slowFused );
+        System.out.printf( "FastSoros: %8.2f ms/run before, %8.2f after (%.2fx)%n",
+                           quickPlain, quickFused, quickPlain / quickFused );
+    }
+}
@@ -61,4 +61,13 @@ public class Errors {
             System.out.printf( "%12s : %11d\n", ident, table.get( ident ) );
         }
     }
+
+    /**
+     * Show on standard output the values of all the variables that were
+     * assigned in a frame, by name.
+     * @param frame the program's variables
+     */
+    public static void dump( Frame frame ) {
+        dump( frame.toMap() );
+    }
 }
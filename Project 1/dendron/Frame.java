@@ -0,0 +1,75 @@
+package dendron;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The values of a program's variables, one int per slot of its
+ * {@link SymbolTable}. A slot that was never assigned has no value,
+ * and reading it is reported as an uninitialized variable.
+ */
+public class Frame {
+
+    /** the name of the variable in each slot, for error messages and dumps */
+    private final String[] names;
+
+    /** the value in each slot */
+    private final int[] values;
+
+    /** whether each slot was assigned */
+    private final boolean[] assigned;
+
+    /**
+     * Create a frame in which no variable has a value yet.
+     * @param names the name of the variable in each slot
+     */
+    public Frame( String[] names ) {
+        this.names = names;
+        this.values = new int[ names.length ];
+        this.assigned = new boolean[ names.length ];
+    }
+
+    /**
+     * Fetch a variable's value. Reading a variable that was never
+     * assigned stops the program.
+     * @param slot the variable's slot
+     * @return its value
+     */
+    public int get( int slot ) {
+        if ( !this.assigned[ slot ] ) {
+            Errors.report( Errors.Type.UNINITIALIZED, this.names[ slot ] );
+        }
+        return this.values[ slot ];
+    }
+
+    /**
+     * Give a variable a value.
+     * @param slot the variable's slot
+     * @param value its new value
+     */
+    public void set( int slot, int value ) {
+        this.values[ slot ] = value;
+        this.assigned[ slot ] = true;
+    }
+
+    /**
+     * @param slot a variable's slot
+     * @return true if the variable was assigned
+     */
+    public boolean isAssigned( int slot ) {
+        return this.assigned[ slot ];
+    }
+
+    /**
+     * @return the assigned variables and their values, by name
+     */
+    public Map< String, Integer > toMap() {
+        Map< String, Integer > table = new HashMap<>();
+        for ( int slot = 0; slot < this.names.length; ++slot ) {
+            if ( this.assigned[ slot ] ) {
+                table.put( this.names[ slot ], this.values[ slot ] );
+            }
+        }
+        return table;
+    }
+}
@@ -1,11 +1,15 @@
 package dendron;
 
+import dendron.machine.Bytecode;
+import dendron.machine.Peephole;
+import dendron.machine.Soros;
 import dendron.treenodes.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintWriter;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Operations that are done on a Dendron code parse tree.
@@ -20,12 +24,19 @@ public class ParseTree {
     public static final String PRINT = "#";
     /** Program */
     private Program root;
+    /** the program after optimization, built the first time it is needed */
+    private Program optimized;
+    /** whether the optimized program is the one interpreted and compiled */
+    private boolean optimizing = true;
+    /** the slot of every variable in the program */
+    private final SymbolTable symbols = new SymbolTable();
 
     /**
      * Parse the entire list of program tokens. The program is a
      * sequence of actions (statements), each of which modifies something
      * in the program's set of variables. The resulting parse tree is
-     * stored internally.
+     * stored internally. Each variable is given its slot in the
+     * program's frame as it is parsed.
      * @param tokens the token list (Strings). This list may be destroyed
      *                by this constructor.
      */
@@ -50,7 +61,7 @@ public class ParseTree {
             String ident = tokens.remove(0);
             if (ident.matches("^[a-zA-Z].*")) {
                 ExpressionNode rhs = parseExpressionNode(tokens);
-                Assignment assignment = new Assignment(ident, rhs);
+                Assignment assignment = new Assignment(ident, symbols.slotOf(ident), rhs);
                 return assignment;
             }
             else {
@@ -98,7 +109,7 @@ public class ParseTree {
         }
         else if ((tokens.get(0).matches("^[a-zA-Z].*"))) {
             String variable = tokens.remove(0);
-            Variable var = new Variable(variable);
+            Variable var = new Variable(variable, symbols.slotOf(variable));
             return var;
         }
         return null;
@@ -113,16 +124,45 @@ public class ParseTree {
         root.infixDisplay();
     }
 
+    /**
+     * Choose whether {@link #interpret()} and the compile methods work on
+     * the optimized program, which is the default, or on the program
+     * exactly as written. Optimized machine instructions also go through
+     * the peephole optimizer. {@link #displayProgram()} always shows the
+     * program as written.
+     * @param optimizing true to use the optimized program
+     * @see Program#optimize()
+     * @see Peephole
+     */
+    public void setOptimizing(boolean optimizing) {
+        this.optimizing = optimizing;
+    }
+
+    /**
+     * The program to interpret and compile.
+     * @return the optimized program, or the program as written if
+     *         optimizing is turned off
+     */
+    private Program program() {
+        if (!optimizing) {
+            return root;
+        }
+        if (optimized == null) {
+            optimized = root.optimize();
+        }
+        return optimized;
+    }
+
     /**
      * Run the program represented by the tree directly
-     * @see ActionNode#execute(Map)
+     * @see ActionNode#execute(Frame)
      */
     public void interpret() {
         System.out.println("Interpreting the parse tree...");
-        Map<String, Integer> symTab = new HashMap<>();
-        root.execute(symTab);
+        Frame frame = new Frame(symbols.names());
+        program().execute(frame);
         System.out.println("Interpretation complete");
-        Errors.dump(symTab);
+        Errors.dump(frame);
     }
 
     /**
@@ -132,6 +172,34 @@ public class ParseTree {
      * @param out where to print the Soros instruction list
      */
     public void compileTo( PrintWriter out ) {
-        root.compile(out);
+        if (!optimizing) {
+            program().compile(out);
+            return;
+        }
+        for (Soros.Instruction instr : compile()) {
+            out.println(instr);
+        }
+    }
+
+    /**
+     * Build the list of machine instructions for the program
+     * represented by the tree, with every variable given its slot.
+     * @return the Soros instructions
+     */
+    public List<Soros.Instruction> compile() {
+        List<Soros.Instruction> code = new ArrayList<>();
+        program().compile(code);
+        return optimizing ? Peephole.optimize(code) : code;
+    }
+
+    /**
+     * Write the machine instructions for the program represented by
+     * the tree as bytecode, which can be run without parsing any text.
+     * @param out where to write the bytecode
+     * @throws IOException if the bytecode can't be written
+     * @see Bytecode
+     */
+    public void compileTo( OutputStream out ) throws IOException {
+        Bytecode.write(compile(), out);
     }
 }
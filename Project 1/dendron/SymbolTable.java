@@ -0,0 +1,50 @@
+package dendron;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gives each identifier of a program a dense slot number, in order of
+ * first appearance. Names are resolved once, when the program is parsed
+ * or assembled, so running it only indexes a {@link Frame}.
+ */
+public class SymbolTable {
+
+    /** the slot of each name seen so far */
+    private final Map< String, Integer > slots = new HashMap<>();
+
+    /** the name in each slot */
+    private final List< String > names = new ArrayList<>();
+
+    /**
+     * Find the slot of a name, giving it the next free slot if it has
+     * none yet.
+     * @param name the identifier
+     * @return its slot
+     */
+    public int slotOf( String name ) {
+        Integer slot = this.slots.get( name );
+        if ( slot == null ) {
+            slot = this.names.size();
+            this.slots.put( name, slot );
+            this.names.add( name );
+        }
+        return slot;
+    }
+
+    /**
+     * @return the number of slots handed out
+     */
+    public int size() {
+        return this.names.size();
+    }
+
+    /**
+     * @return the name in each slot, indexed by slot
+     */
+    public String[] names() {
+        return this.names.toArray( new String[ 0 ] );
+    }
+}
@@ -0,0 +1,236 @@
+package dendron.machine;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A binary form of Soros programs, so a compiled program can be run
+ * without parsing assembly text. All numbers are big-endian.
+ * <pre>
+ *     u4 magic "SORS"
+ *     u2 version
+ *     u4 constant count, then each constant as s4
+ *     u4 slot count, then each slot's variable name as a u2 byte
+ *        length and that many bytes of UTF-8 (empty for an unused slot)
+ *     u4 instruction count, then each instruction as a u1 opcode,
+ *        followed for PUSH and ADD_CONST by a u4 constant index, for
+ *        LOAD, STORE and STORE_KEEP by a u4 slot, and for LOAD_LOAD_ADD
+ *        by two u4 slots
+ * </pre>
+ * The opcodes are those of {@link FastSoros}, which is what a loaded
+ * program runs on.
+ */
+public class Bytecode {
+
+    /** the first four bytes of every bytecode file: "SORS" */
+    public static final int MAGIC = 0x534F5253;
+
+    /** the version of the format written */
+    public static final short VERSION = 1;
+
+    /**
+     * Write a program as bytecode.
+     * @param program a list of Soros instructions
+     * @param out where the bytecode goes; it is flushed but not closed
+     * @throws IOException if the bytecode can't be written
+     */
+    public static void write( List< Soros.Instruction > program, OutputStream out )
+            throws IOException {
+        write( new FastSoros( program ), out );
+    }
+
+    /**
+     * Write a translated program as bytecode.
+     * @param program the program
+     * @param out where the bytecode goes; it is flushed but not closed
+     * @throws IOException if the bytecode can't be written
+     */
+    public static void write( FastSoros program, OutputStream out ) throws IOException {
+        Map< Integer, Integer > pool = new HashMap<>();
+        int[] constants = new int[ program.size() ];
+        for ( int pc = 0; pc < program.size(); ++pc ) {
+            byte opcode = program.getOpcode( pc );
+            if ( opcode == FastSoros.PUSH || opcode == FastSoros.ADD_CONST ) {
+                int value = program.getOperand( pc );
+                if ( !pool.containsKey( value ) ) {
+                    constants[ pool.size() ] = value;
+                    pool.put( value, pool.size() );
+                }
+            }
+        }
+
+        DataOutputStream data = new DataOutputStream( new BufferedOutputStream( out ) );
+        data.writeInt( MAGIC );
+        data.writeShort( VERSION );
+        data.writeInt( pool.size() );
+        for ( int i = 0; i < pool.size(); ++i ) {
+            data.writeInt( constants[ i ] );
+        }
+        String[] names = program.getNames();
+        data.writeInt( names.length );
+        for ( String name: names ) {
+            byte[] bytes = ( name == null ? "" : name ).getBytes( StandardCharsets.UTF_8 );
+            data.writeShort( bytes.length );
+            data.write( bytes );
+        }
+        data.writeInt( program.size() );
+        for ( int pc = 0; pc < program.size(); ++pc ) {
+            byte opcode = program.getOpcode( pc );
+            data.writeByte( opcode );
+            switch ( opcode ) {
+                case FastSoros.PUSH, FastSoros.ADD_CONST ->
+                        data.writeInt( pool.get( program.getOperand( pc ) ) );
+                case FastSoros.LOAD, FastSoros.STORE, FastSoros.STORE_KEEP ->
+                        data.writeInt( program.getOperand( pc ) );
+                case FastSoros.LOAD_LOAD_ADD -> {
+                    data.writeInt( program.getPairSlot( program.getOperand( pc ) ) );
+                    data.writeInt( program.getPairSlot( program.getOperand( pc ) + 1 ) );
+                }
+            }
+        }
+        data.flush();
+    }
+
+    /**
+     * Load a bytecode file by mapping it into memory.
+     * @param file the bytecode file
+     * @return the program, ready to execute
+     * @throws IOException if the file can't be read or is not valid bytecode
+     */
+    public static FastSoros load( Path file ) throws IOException {
+        try ( FileChannel channel = FileChannel.open( file ) ) {
+            return load( channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() ) );
+        }
+    }
+
+    /**
+     * Load bytecode from a buffer, starting at its position.
+     * @param buffer the bytecode
+     * @return the program, ready to execute
+     * @throws IOException if the buffer does not hold valid bytecode
+     */
+    public static FastSoros load( ByteBuffer buffer ) throws IOException {
+        try {
+            if ( buffer.getInt() != MAGIC ) {
+                throw new IOException( "not Soros bytecode" );
+            }
+            short version = buffer.getShort();
+            if ( version != VERSION ) {
+                throw new IOException( "unknown bytecode version " + version );
+            }
+            int[] constants = new int[ count( buffer ) ];
+            for ( int i = 0; i < constants.length; ++i ) {
+                constants[ i ] = buffer.getInt();
+            }
+            String[] names = new String[ count( buffer ) ];
+            for ( int slot = 0; slot < names.length; ++slot ) {
+                byte[] bytes = new byte[ Short.toUnsignedInt( buffer.getShort() ) ];
+                buffer.get( bytes );
+                names[ slot ] = bytes.length == 0 ? null : new String( bytes, StandardCharsets.UTF_8 );
+            }
+            byte[] opcodes = new byte[ count( buffer ) ];
+            int[] operands = new int[ opcodes.length ];
+            int[] pairs = new int[ 0 ];
+            int pairCount = 0;
+            for ( int pc = 0; pc < opcodes.length; ++pc ) {
+                byte opcode = buffer.get();
+                opcodes[ pc ] = opcode;
+                switch ( opcode ) {
+                    case FastSoros.PUSH, FastSoros.ADD_CONST ->
+                            operands[ pc ] = constants[ index( buffer, constants.length ) ];
+                    case FastSoros.LOAD, FastSoros.STORE, FastSoros.STORE_KEEP ->
+                            operands[ pc ] = slot( buffer, names );
+                    case FastSoros.LOAD_LOAD_ADD -> {
+                        if ( pairCount + 2 > pairs.length ) {
+                            pairs = Arrays.copyOf( pairs, Math.max( 2, 2 * pairs.length ) );
+                        }
+                        operands[ pc ] = pairCount;
+                        pairs[ pairCount++ ] = slot( buffer, names );
+                        pairs[ pairCount++ ] = slot( buffer, names );
+                    }
+                    case FastSoros.ADD, FastSoros.SUBTRACT, FastSoros.MULTIPLY,
+                         FastSoros.DIVIDE, FastSoros.NEGATE, FastSoros.SQUARE_ROOT,
+                         FastSoros.PRINT -> { }
+                    default -> throw new IOException( "unknown opcode " + opcode );
+                }
+            }
+            return new FastSoros( opcodes, operands, Arrays.copyOf( pairs, pairCount ), names );
+        }
+        catch ( BufferUnderflowException bue ) {
+            throw new IOException( "bytecode ends too soon" );
+        }
+    }
+
+    /**
+     * Read a count, which can't be bigger than what is left of the buffer.
+     * @param buffer the bytecode
+     * @return the count
+     * @throws IOException if the count is negative or too big
+     */
+    private static int count( ByteBuffer buffer ) throws IOException {
+        int count = buffer.getInt();
+        if ( count < 0 || count > buffer.remaining() ) {
+            throw new IOException( "bad count " + count );
+        }
+        return count;
+    }
+
+    /**
+     * Read an index into a table.
+     * @param buffer the bytecode
+     * @param size the table's size
+     * @return the index
+     * @throws IOException if the index is out of range
+     */
+    private static int index( ByteBuffer buffer, int size ) throws IOException {
+        int index = buffer.getInt();
+        if ( index < 0 || index >= size ) {
+            throw new IOException( "index " + index + " out of range" );
+        }
+        return index;
+    }
+
+    /**
+     * Read a variable slot.
+     * @param buffer the bytecode
+     * @param names the name of each variable, by slot
+     * @return the slot
+     * @throws IOException if the slot is out of range or has no name
+     */
+    private static int slot( ByteBuffer buffer, String[] names ) throws IOException {
+        int slot = index( buffer, names.length );
+        if ( names[ slot ] == null ) {
+            throw new IOException( "unnamed slot " + slot );
+        }
+        return slot;
+    }
+
+    /**
+     * Load and execute a bytecode file.
+     * @param args the name of the bytecode file
+     */
+    public static void main( String[] args ) {
+        if ( args.length != 1 ) {
+            System.err.println( "Usage: java Bytecode bytecode-file" );
+            System.exit( 1 );
+        }
+        try {
+            load( Path.of( args[ 0 ] ) ).execute();
+        }
+        catch ( IOException ioe ) {
+            System.err.println( args[ 0 ] + ": " + ioe.getMessage() );
+            System.exit( 1 );
+        }
+    }
+}
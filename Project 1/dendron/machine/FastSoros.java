@@ -0,0 +1,313 @@
+package dendron.machine;
+
+import java.util.Arrays;
+import java.util.EmptyStackException;
+import java.util.List;
+import dendron.Errors;
+import dendron.Frame;
+
+/**
+ * A second execution core for Soros programs. The list of instruction
+ * objects is translated once into an array of opcodes and a parallel
+ * array of operands, and then run by a single switch loop on an int
+ * array stack, so nothing is boxed and no instruction object is called.
+ * Variables keep the slots they were given when the program was
+ * assembled, and their values live in a {@link Frame}.
+ *
+ * Running a program produces the same output as {@link Soros#execute},
+ * errors included.
+ */
+public class FastSoros {
+
+    public final static byte PUSH = 0;
+
+    public final static byte LOAD = 1;
+
+    public final static byte STORE = 2;
+
+    public final static byte ADD = 3;
+
+    public final static byte SUBTRACT = 4;
+
+    public final static byte MULTIPLY = 5;
+
+    public final static byte DIVIDE = 6;
+
+    public final static byte NEGATE = 7;
+
+    public final static byte SQUARE_ROOT = 8;
+
+    public final static byte PRINT = 9;
+
+    public final static byte ADD_CONST = 10;
+
+    public final static byte LOAD_LOAD_ADD = 11;
+
+    public final static byte STORE_KEEP = 12;
+
+    /** the opcode of each instruction */
+    private final byte[] opcodes;
+
+    /**
+     * the operand of each instruction: the constant for PUSH and ADD_CONST,
+     * the variable slot for LOAD, STORE and STORE_KEEP, the index of the
+     * first slot in {@link #pairs} for LOAD_LOAD_ADD, unused otherwise
+     */
+    private final int[] operands;
+
+    /** the two slots of each LOAD_LOAD_ADD, one after the other */
+    private final int[] pairs;
+
+    /** the name of each variable, by slot */
+    private final String[] names;
+
+    /** the most values the program ever has on the stack */
+    private final int maxStack;
+
+    /**
+     * Translate a program for this core.
+     * @param program a list of Soros instructions
+     */
+    public FastSoros( List< Soros.Instruction > program ) {
+        this.opcodes = new byte[ program.size() ];
+        this.operands = new int[ program.size() ];
+        int[] pairs = new int[ 0 ];
+        int pairCount = 0;
+        int pc = 0;
+        for ( Soros.Instruction instr: program ) {
+            this.opcodes[ pc ] = opcodeOf( instr );
+            if ( instr instanceof Soros.PushConst push ) {
+                this.operands[ pc ] = push.getValue();
+            }
+            else if ( instr instanceof Soros.Load load ) {
+                this.operands[ pc ] = load.getSlot();
+            }
+            else if ( instr instanceof Soros.Store store ) {
+                this.operands[ pc ] = store.getSlot();
+            }
+            else if ( instr instanceof Soros.AddConst add ) {
+                this.operands[ pc ] = add.getValue();
+            }
+            else if ( instr instanceof Soros.StoreKeep store ) {
+                this.operands[ pc ] = store.getSlot();
+            }
+            else if ( instr instanceof Soros.LoadLoadAdd add ) {
+                if ( pairCount + 2 > pairs.length ) {
+                    pairs = Arrays.copyOf( pairs, Math.max( 2, 2 * pairs.length ) );
+                }
+                this.operands[ pc ] = pairCount;
+                pairs[ pairCount++ ] = add.getFirstSlot();
+                pairs[ pairCount++ ] = add.getSecondSlot();
+            }
+            ++pc;
+        }
+        this.pairs = Arrays.copyOf( pairs, pairCount );
+        this.names = namesOf( program );
+        this.maxStack = maxStack( this.opcodes );
+    }
+
+    /**
+     * Use a program that is already translated, such as one loaded
+     * from bytecode.
+     * @param opcodes the opcode of each instruction
+     * @param operands the operand of each instruction
+     * @param pairs the two slots of each LOAD_LOAD_ADD
+     * @param names the name of each variable, by slot
+     * @see Bytecode#load
+     */
+    FastSoros( byte[] opcodes, int[] operands, int[] pairs, String[] names ) {
+        this.opcodes = opcodes;
+        this.operands = operands;
+        this.pairs = pairs;
+        this.names = names;
+        this.maxStack = maxStack( opcodes );
+    }
+
+    /**
+     * Find the most values a program ever has on the stack. The program
+     * runs straight through, so this is exact.
+     * @param opcodes the opcode of each instruction
+     * @return the most values on the stack at once
+     */
+    private static int maxStack( byte[] opcodes ) {
+        int depth = 0;
+        int maxDepth = 0;
+        for ( byte opcode: opcodes ) {
+            depth = Math.max( 0, depth + stackEffect( opcode ) );
+            maxDepth = Math.max( maxDepth, depth );
+        }
+        return maxDepth;
+    }
+
+    /**
+     * Find the name of the variable in each slot a program uses.
+     * @param program a list of Soros instructions
+     * @return the names, indexed by slot
+     */
+    private static String[] namesOf( List< Soros.Instruction > program ) {
+        String[] names = new String[ 0 ];
+        for ( Soros.Instruction instr: program ) {
+            if ( instr instanceof Soros.Load load ) {
+                names = name( names, load.getSlot(), load.getName() );
+            }
+            else if ( instr instanceof Soros.Store store ) {
+                names = name( names, store.getSlot(), store.getName() );
+            }
+            else if ( instr instanceof Soros.StoreKeep store ) {
+                names = name( names, store.getSlot(), store.getName() );
+            }
+            else if ( instr instanceof Soros.LoadLoadAdd add ) {
+                names = name( names, add.getFirstSlot(), add.getFirst() );
+                names = name( names, add.getSecondSlot(), add.getSecond() );
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Record the name of the variable in a slot.
+     * @param names the names found so far, by slot
+     * @param slot the slot
+     * @param name the name of its variable
+     * @return the names, in a longer array if the slot did not fit
+     */
+    private static String[] name( String[] names, int slot, String name ) {
+        if ( slot >= names.length ) {
+            names = Arrays.copyOf( names, slot + 1 );
+        }
+        names[ slot ] = name;
+        return names;
+    }
+
+    /**
+     * Find the opcode of an instruction object.
+     * @param instr the instruction
+     * @return its opcode
+     */
+    private static byte opcodeOf( Soros.Instruction instr ) {
+        if ( instr instanceof Soros.PushConst ) return PUSH;
+        if ( instr instanceof Soros.Load ) return LOAD;
+        if ( instr instanceof Soros.Store ) return STORE;
+        if ( instr instanceof Soros.Add ) return ADD;
+        if ( instr instanceof Soros.Subtract ) return SUBTRACT;
+        if ( instr instanceof Soros.Multiply ) return MULTIPLY;
+        if ( instr instanceof Soros.Divide ) return DIVIDE;
+        if ( instr instanceof Soros.Negate ) return NEGATE;
+        if ( instr instanceof Soros.SquareRoot ) return SQUARE_ROOT;
+        if ( instr instanceof Soros.Print ) return PRINT;
+        if ( instr instanceof Soros.AddConst ) return ADD_CONST;
+        if ( instr instanceof Soros.LoadLoadAdd ) return LOAD_LOAD_ADD;
+        if ( instr instanceof Soros.StoreKeep ) return STORE_KEEP;
+        throw new IllegalArgumentException( "unknown instruction " + instr );
+    }
+
+    /**
+     * How an instruction changes the number of values on the stack.
+     * @param opcode the instruction's opcode
+     * @return the change in stack size
+     */
+    private static int stackEffect( byte opcode ) {
+        return switch ( opcode ) {
+            case PUSH, LOAD, LOAD_LOAD_ADD -> 1;
+            case NEGATE, SQUARE_ROOT, ADD_CONST, STORE_KEEP -> 0;
+            default -> -1;
+        };
+    }
+
+    /**
+     * @return the number of instructions in the translated program
+     */
+    public int size() {
+        return this.opcodes.length;
+    }
+
+    /**
+     * @param pc an instruction's position
+     * @return the instruction's opcode
+     */
+    byte getOpcode( int pc ) {
+        return this.opcodes[ pc ];
+    }
+
+    /**
+     * @param pc an instruction's position
+     * @return the instruction's operand
+     */
+    int getOperand( int pc ) {
+        return this.operands[ pc ];
+    }
+
+    /**
+     * @param index a position in the table of LOAD_LOAD_ADD slots
+     * @return the slot there
+     */
+    int getPairSlot( int index ) {
+        return this.pairs[ index ];
+    }
+
+    /**
+     * @return the name of each variable, by slot; null for an unused slot
+     */
+    String[] getNames() {
+        return this.names;
+    }
+
+    /**
+     * Run the translated program from a pristine state.
+     * Report on the final size of the stack (should normally be empty)
+     * and the contents of the symbol table.
+     * @see Soros#execute
+     */
+    public void execute() {
+        System.out.println( "Executing compiled code..." );
+        int[] stack = new int[ this.maxStack ];
+        Frame frame = new Frame( this.names );
+        int sp = 0;
+        try {
+            for ( int pc = 0; pc < this.opcodes.length; ++pc ) {
+                switch ( this.opcodes[ pc ] ) {
+                    case PUSH -> stack[ sp++ ] = this.operands[ pc ];
+                    case LOAD -> stack[ sp++ ] = frame.get( this.operands[ pc ] );
+                    case STORE -> frame.set( this.operands[ pc ], stack[ --sp ] );
+                    case ADD -> {
+                        --sp;
+                        stack[ sp - 1 ] += stack[ sp ];
+                    }
+                    case SUBTRACT -> {
+                        --sp;
+                        stack[ sp - 1 ] -= stack[ sp ];
+                    }
+                    case MULTIPLY -> {
+                        --sp;
+                        stack[ sp - 1 ] *= stack[ sp ];
+                    }
+                    case DIVIDE -> {
+                        --sp;
+                        stack[ sp - 1 ] /= stack[ sp ];
+                    }
+                    case NEGATE -> stack[ sp - 1 ] = -stack[ sp - 1 ];
+                    case SQUARE_ROOT -> stack[ sp - 1 ] =
+                            (int)Math.sqrt( stack[ sp - 1 ] );
+                    case PRINT -> System.out.println( "=== " + stack[ --sp ] );
+                    case ADD_CONST -> stack[ sp - 1 ] += this.operands[ pc ];
+                    case LOAD_LOAD_ADD -> {
+                        int pair = this.operands[ pc ];
+                        int first = frame.get( this.pairs[ pair ] );
+                        stack[ sp++ ] = first + frame.get( this.pairs[ pair + 1 ] );
+                    }
+                    case STORE_KEEP -> frame.set( this.operands[ pc ], stack[ sp - 1 ] );
+                }
+            }
+        }
+        catch ( ArrayIndexOutOfBoundsException aioobe ) {
+            // The stack is exactly as big as the program needs, so the only
+            // way out of bounds is popping an empty stack.
+            throw new EmptyStackException();
+        }
+        System.out.println( "Soros: execution ended with " +
+                            sp + " items left on the stack." );
+        System.out.println();
+        Errors.dump( frame );
+        System.out.println();
+    }
+}
@@ -3,7 +3,8 @@ package dendron.machine;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.*;
-import java.util.function.Function;
+import java.util.function.BiFunction;
+import dendron.SymbolTable;
 
 /**
  * Interpret Soros assembly instructions from a file.
@@ -14,37 +15,49 @@ public class InstructionReader {
 
     public static String EOF = ".";
 
-    private static Map< String, Function< String[], Soros.Instruction> > gen
+    private static Map< String,
+            BiFunction< String[], SymbolTable, Soros.Instruction> > gen
             = new HashMap<>()
     {{
-        put( "PUSH", in -> { int i = Integer.parseInt( in[1] );
-                             return new Soros.PushConst( i ); } );
-        put( "LOAD", in -> { String v = in[ 1 ];
-                             return new Soros.Load( v ); } );
-        put( "STORE", in -> { String v = in[ 1 ];
-                              return new Soros.Store( v ); } );
-        put( "ADD", in -> new Soros.Add() );
-        put( "SUB", in -> new Soros.Subtract() );
-        put( "MUL", in -> new Soros.Multiply() );
-        put( "DIV", in -> new Soros.Divide() );
-        put( "NEG", in -> new Soros.Negate() );
-        put( "SQRT", in -> new Soros.SquareRoot() );
-        put( "PRINT", in -> new Soros.Print() );
+        put( "PUSH", ( in, sym ) -> { int i = Integer.parseInt( in[1] );
+                                      return new Soros.PushConst( i ); } );
+        put( "LOAD", ( in, sym ) -> { String v = in[ 1 ];
+                                      return new Soros.Load( v, sym.slotOf( v ) ); } );
+        put( "STORE", ( in, sym ) -> { String v = in[ 1 ];
+                                       return new Soros.Store( v, sym.slotOf( v ) ); } );
+        put( "ADD", ( in, sym ) -> new Soros.Add() );
+        put( "SUB", ( in, sym ) -> new Soros.Subtract() );
+        put( "MUL", ( in, sym ) -> new Soros.Multiply() );
+        put( "DIV", ( in, sym ) -> new Soros.Divide() );
+        put( "NEG", ( in, sym ) -> new Soros.Negate() );
+        put( "SQRT", ( in, sym ) -> new Soros.SquareRoot() );
+        put( "PRINT", ( in, sym ) -> new Soros.Print() );
+        put( "ADDC", ( in, sym ) -> { int i = Integer.parseInt( in[1] );
+                                      return new Soros.AddConst( i ); } );
+        put( "LLADD", ( in, sym ) -> { String v = in[ 1 ];
+                                       String w = in[ 2 ];
+                                       return new Soros.LoadLoadAdd(
+                                               v, sym.slotOf( v ),
+                                               w, sym.slotOf( w ) ); } );
+        put( "STOREK", ( in, sym ) -> { String v = in[ 1 ];
+                                        return new Soros.StoreKeep( v, sym.slotOf( v ) ); } );
     }};
 
     /**
      * Read instructions from the named file and translate them
-     * to internal form.
+     * to internal form. Each variable is given a slot the first time
+     * it appears.
      * @param assyFile the text file containing the assembly code
      * @return a list of Soros.Instruction objects, ready to execute
      */
     public static List< Soros.Instruction > assemble( Scanner assyFile ) {
         List< Soros.Instruction > result = new LinkedList<>();
+        SymbolTable symbols = new SymbolTable();
         while ( assyFile.hasNextLine() ) {
             String[] items = assyFile.nextLine().strip().split( "\\s+" );
             String mnemonic = items[ 0 ];
             if ( gen.containsKey( mnemonic ) ) {
-                result.add( gen.get( mnemonic ).apply( items ) );
+                result.add( gen.get( mnemonic ).apply( items, symbols ) );
             }
             else if ( mnemonic.equals( EOF ) ) {
                 break; // manual end of file (for when inside IntelliJ IDEA)
@@ -0,0 +1,77 @@
+package dendron.machine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A peephole optimizer for Soros programs. It slides a small window over
+ * the instructions and replaces these sequences with one superinstruction
+ * that does the same work in a single step:
+ * <ul>
+ *     <li>LOAD a, LOAD b, ADD becomes LLADD a b</li>
+ *     <li>PUSH c, ADD becomes ADDC c, and PUSH c, SUB becomes ADDC -c</li>
+ *     <li>ADDC c, ADDC d becomes ADDC c+d</li>
+ *     <li>STORE x, LOAD x becomes STOREK x</li>
+ * </ul>
+ * Arithmetic wraps around the same way either way, and uninitialized
+ * variables and empty stacks are caught at the same point, so the
+ * optimized program prints the same results and ends with the same
+ * symbol table.
+ */
+public class Peephole {
+
+    /**
+     * Optimize a program.
+     * @param program a list of Soros instructions; it is not changed
+     * @return the optimized program
+     */
+    public static List< Soros.Instruction > optimize( List< Soros.Instruction > program ) {
+        List< Soros.Instruction > code = new ArrayList<>( program );
+        List< Soros.Instruction > result = new ArrayList<>( code.size() );
+        int pc = 0;
+        while ( pc < code.size() ) {
+            Soros.Instruction first = code.get( pc );
+            Soros.Instruction second = pc + 1 < code.size() ? code.get( pc + 1 ) : null;
+            Soros.Instruction third = pc + 2 < code.size() ? code.get( pc + 2 ) : null;
+            if ( first instanceof Soros.Load a && second instanceof Soros.Load b &&
+                    third instanceof Soros.Add ) {
+                result.add( new Soros.LoadLoadAdd( a.getName(), a.getSlot(),
+                                                   b.getName(), b.getSlot() ) );
+                pc += 3;
+            }
+            else if ( first instanceof Soros.PushConst push && second instanceof Soros.Add ) {
+                addConst( result, push.getValue() );
+                pc += 2;
+            }
+            else if ( first instanceof Soros.PushConst push && second instanceof Soros.Subtract ) {
+                addConst( result, -push.getValue() );
+                pc += 2;
+            }
+            else if ( first instanceof Soros.Store store && second instanceof Soros.Load load &&
+                    store.getSlot() == load.getSlot() ) {
+                result.add( new Soros.StoreKeep( store.getName(), store.getSlot() ) );
+                pc += 2;
+            }
+            else {
+                result.add( first );
+                pc += 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Append an ADDC, merging it into an ADDC just before it.
+     * @param result the optimized program so far
+     * @param value the constant to add
+     */
+    private static void addConst( List< Soros.Instruction > result, int value ) {
+        int last = result.size() - 1;
+        if ( last >= 0 && result.get( last ) instanceof Soros.AddConst previous ) {
+            result.set( last, new Soros.AddConst( previous.getValue() + value ) );
+        }
+        else {
+            result.add( new Soros.AddConst( value ) );
+        }
+    }
+}
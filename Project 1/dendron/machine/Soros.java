@@ -1,5 +1,6 @@
 package dendron.machine;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Stack;
 import java.util.Map;
@@ -8,9 +9,10 @@ import dendron.Errors;
 
 /**
  * An abstraction of a computing machine that reads instructions
- * and executes them. It has an instruction set, a symbol table
- * for variables (instead of general-purpose memory), and a
- * value stack on which calculations are performed.
+ * and executes them. It has an instruction set, a frame holding
+ * one int per variable slot (instead of general-purpose memory), and a
+ * value stack on which calculations are performed. Variables are
+ * given their slots when the program is assembled.
  *
  * (Everything is static to avoid the need to master the subtleties
  * of nested class instantiation or to pass the symbol table and
@@ -40,6 +42,12 @@ public class Soros {
 
     public final static String PRINT = "PRINT";
 
+    public final static String ADD_CONST = "ADDC";
+
+    public final static String LOAD_LOAD_ADD = "LLADD";
+
+    public final static String STORE_KEEP = "STOREK";
+
     public static interface Instruction {
         /**
          * Run this instruction on the Machine, using the Machine's
@@ -57,20 +65,32 @@ public class Soros {
     }
 
     /**
-     * This is the equivalent of a Python dict. It will be covered in week 5.
+     * The variables' values, indexed by slot. It grows as variables in
+     * higher slots are stored.
+     */
+    private int[] frame = null;
+
+    /**
+     * The name of the variable in each slot, or null if it was never stored.
      */
-    private Map< String, Integer > table = null;
+    private String[] names = null;
 
-    public void setVar( String var, int value ) {
-        this.table.put( var, value );
+    public void setVar( int slot, String var, int value ) {
+        if ( slot >= this.frame.length ) {
+            int length = Math.max( slot + 1, 2 * this.frame.length );
+            this.frame = Arrays.copyOf( this.frame, length );
+            this.names = Arrays.copyOf( this.names, length );
+        }
+        this.frame[ slot ] = value;
+        this.names[ slot ] = var;
     }
 
-    public boolean existsVar( String var ) {
-        return this.table.containsKey( var );
+    public boolean existsVar( int slot ) {
+        return slot < this.names.length && this.names[ slot ] != null;
     }
 
-    public int getVar( String var ) {
-        return this.table.get( var );
+    public int getVar( int slot ) {
+        return this.frame[ slot ];
     }
 
     Stack< Integer > stack = null;
@@ -83,13 +103,31 @@ public class Soros {
         return this.stack.pop();
     }
 
+    public int peek() {
+        return this.stack.peek();
+    }
+
     /**
      * Reset the Machine to a pristine state.
      * @see Soros#execute
      */
     private void reset() {
         this.stack = new Stack<>();
-        this.table = new HashMap<>();
+        this.frame = new int[ 0 ];
+        this.names = new String[ 0 ];
+    }
+
+    /**
+     * @return the stored variables and their values, by name
+     */
+    private Map< String, Integer > table() {
+        Map< String, Integer > table = new HashMap<>();
+        for ( int slot = 0; slot < this.names.length; ++slot ) {
+            if ( this.names[ slot ] != null ) {
+                table.put( this.names[ slot ], this.frame[ slot ] );
+            }
+        }
+        return table;
     }
 
     /**
@@ -108,7 +146,7 @@ public class Soros {
         System.out.println( "Soros: execution ended with " +
                             stack.size() + " items left on the stack." );
         System.out.println();
-        Errors.dump( table );
+        Errors.dump( table() );
         System.out.println();
     }
 
@@ -125,6 +163,13 @@ public class Soros {
             this.value = constant;
         }
 
+        /**
+         * @return the constant this instruction pushes
+         */
+        int getValue() {
+            return this.value;
+        }
+
         @Override
         public void execute( Soros m ) {
             m.push( this.value );
@@ -132,7 +177,7 @@ public class Soros {
 
         @Override
         public String toString() {
-            return "PUSH  " + this.value;
+            return "PUSH " + this.value;
         }
     }
 
@@ -181,21 +226,38 @@ public class Soros {
     public static class Load implements Instruction {
         private String name;
 
-        public Load( String ident ) {
+        private int slot;
+
+        public Load( String ident, int slot ) {
             this.name = ident;
+            this.slot = slot;
+        }
+
+        /**
+         * @return the variable this instruction uses
+         */
+        String getName() {
+            return this.name;
+        }
+
+        /**
+         * @return the slot of the variable this instruction uses
+         */
+        int getSlot() {
+            return this.slot;
         }
 
         @Override
         public void execute( Soros m ) {
-            if ( !m.existsVar( this.name ) ) {
+            if ( !m.existsVar( this.slot ) ) {
                 Errors.report( Errors.Type.UNINITIALIZED, this.name );
             }
-            m.push( m.getVar( this.name ) );
+            m.push( m.getVar( this.slot ) );
         }
 
         @Override
         public String toString() {
-            return "LOAD  " + this.name;
+            return "LOAD " + this.name;
         }
     }
 
@@ -251,13 +313,30 @@ public class Soros {
     public static class Store implements Instruction {
         private String name;
 
-        public Store( String ident ) {
+        private int slot;
+
+        public Store( String ident, int slot ) {
             this.name = ident;
+            this.slot = slot;
+        }
+
+        /**
+         * @return the variable this instruction uses
+         */
+        String getName() {
+            return this.name;
+        }
+
+        /**
+         * @return the slot of the variable this instruction uses
+         */
+        int getSlot() {
+            return this.slot;
         }
 
         @Override
         public void execute( Soros m ) {
-            m.setVar( this.name, m.pop() );
+            m.setVar( this.slot, this.name, m.pop() );
         }
 
         @Override
@@ -279,4 +358,142 @@ public class Soros {
             return "SUB";
         }
     }
+
+// ===========================================================================
+
+/*
+ * Superinstructions, each doing the work of a short sequence of the
+ * instructions above in one step. See Peephole.
+ */
+
+    /**
+     * PUSH c followed by ADD.
+     */
+    public static class AddConst implements Instruction {
+        private int value;
+
+        public AddConst( int constant ) {
+            this.value = constant;
+        }
+
+        /**
+         * @return the constant this instruction adds
+         */
+        int getValue() {
+            return this.value;
+        }
+
+        @Override
+        public void execute( Soros m ) {
+            int op = m.pop();
+            m.push( op + this.value );
+        }
+
+        @Override
+        public String toString() {
+            return "ADDC " + this.value;
+        }
+    }
+
+    /**
+     * LOAD a, LOAD b, then ADD.
+     */
+    public static class LoadLoadAdd implements Instruction {
+        private String first;
+
+        private int firstSlot;
+
+        private String second;
+
+        private int secondSlot;
+
+        public LoadLoadAdd( String first, int firstSlot, String second, int secondSlot ) {
+            this.first = first;
+            this.firstSlot = firstSlot;
+            this.second = second;
+            this.secondSlot = secondSlot;
+        }
+
+        /**
+         * @return the variable whose value is loaded first
+         */
+        String getFirst() {
+            return this.first;
+        }
+
+        /**
+         * @return the slot of the variable whose value is loaded first
+         */
+        int getFirstSlot() {
+            return this.firstSlot;
+        }
+
+        /**
+         * @return the variable whose value is loaded second
+         */
+        String getSecond() {
+            return this.second;
+        }
+
+        /**
+         * @return the slot of the variable whose value is loaded second
+         */
+        int getSecondSlot() {
+            return this.secondSlot;
+        }
+
+        @Override
+        public void execute( Soros m ) {
+            if ( !m.existsVar( this.firstSlot ) ) {
+                Errors.report( Errors.Type.UNINITIALIZED, this.first );
+            }
+            if ( !m.existsVar( this.secondSlot ) ) {
+                Errors.report( Errors.Type.UNINITIALIZED, this.second );
+            }
+            m.push( m.getVar( this.firstSlot ) + m.getVar( this.secondSlot ) );
+        }
+
+        @Override
+        public String toString() {
+            return "LLADD " + this.first + " " + this.second;
+        }
+    }
+
+    /**
+     * STORE x followed by LOAD x: the value is stored but stays on the stack.
+     */
+    public static class StoreKeep implements Instruction {
+        private String name;
+
+        private int slot;
+
+        public StoreKeep( String ident, int slot ) {
+            this.name = ident;
+            this.slot = slot;
+        }
+
+        /**
+         * @return the variable this instruction uses
+         */
+        String getName() {
+            return this.name;
+        }
+
+        /**
+         * @return the slot of the variable this instruction uses
+         */
+        int getSlot() {
+            return this.slot;
+        }
+
+        @Override
+        public void execute( Soros m ) {
+            m.setVar( this.slot, this.name, m.peek() );
+        }
+
+        @Override
+        public String toString() {
+            return "STOREK " + this.name;
+        }
+    }
 }
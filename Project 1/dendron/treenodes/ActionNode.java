@@ -1,6 +1,6 @@
 package dendron.treenodes;
 
-import java.util.Map;
+import dendron.Frame;
 
 /**
  * A dendron.tree.DendronNode that performs an action but does not
@@ -14,8 +14,15 @@ public interface ActionNode extends DendronNode {
     /**
      * Perform the action represented by this node. Actions are
      * things like changing variable values.
-     * @param symTab the table where variable values are stored
+     * @param frame where variable values are stored
      */
-    void execute( Map< String, Integer > symTab );
+    void execute( Frame frame );
+
+    /**
+     * Build the same action with its expression optimized.
+     * @return the optimized action
+     * @see ExpressionNode#optimize()
+     */
+    ActionNode optimize();
 
 }
@@ -1,9 +1,10 @@
 package dendron.treenodes;
 
+import dendron.Frame;
 import dendron.machine.Soros;
 
 import java.io.PrintWriter;
-import java.util.Map;
+import java.util.List;
 
 /**
  * An ActionNode that represents the assignment of the value of an expression to a variable.
@@ -12,6 +13,8 @@ import java.util.Map;
 public class Assignment extends Object implements ActionNode{
     /** the name of the variable that is getting a new value */
     private final String ident;
+    /** the slot of the variable that is getting a new value */
+    private final int slot;
     /** the expression on the "right-hand side" (RHS) of the assignment statement */
     private final ExpressionNode rhs;
 
@@ -21,19 +24,29 @@ public class Assignment extends Object implements ActionNode{
      * a computation. This use is not compatible with Variable's mission.
      *
      * @param ident the name of the variable that is getting a new value
+     * @param slot the variable's slot in the frame
      * @param rhs the expression on the "right-hand side" (RHS) of the assignment statement
      */
-    public Assignment(String ident, ExpressionNode rhs) {
+    public Assignment(String ident, int slot, ExpressionNode rhs) {
         this.ident = ident;
+        this.slot = slot;
         this.rhs = rhs;
     }
 
     /**
      * Evaluate the RHS expression and assign the result value to the variable.
-     * @param symTab the table where variable values are stored
+     * @param frame where variable values are stored
      */
-    public void execute(Map<String, Integer> symTab) {
-        symTab.put(ident, rhs.evaluate(symTab));
+    public void execute(Frame frame) {
+        frame.set(slot, rhs.evaluate(frame));
+    }
+
+    /**
+     * Build the same assignment with its RHS optimized.
+     * @return the optimized assignment
+     */
+    public ActionNode optimize() {
+        return new Assignment(ident, slot, rhs.optimize());
     }
 
     /**
@@ -53,4 +66,13 @@ public class Assignment extends Object implements ActionNode{
         this.rhs.compile(out);
         out.println(Soros.STORE + " " + ident);
     }
+
+    /**
+     * Append the instructions that perform the assignment.
+     * @param code the program being built
+     */
+    public void compile(List<Soros.Instruction> code) {
+        this.rhs.compile(code);
+        code.add(new Soros.Store(ident, slot));
+    }
 }
@@ -1,12 +1,13 @@
 package dendron.treenodes;
 
 import dendron.Errors;
+import dendron.Frame;
 import dendron.machine.Soros;
 
 import java.io.PrintWriter;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Map;
+import java.util.List;
 
 /**
  * A calculation represented by a binary operator and its two operands.
@@ -47,13 +48,20 @@ public class BinaryOperation extends Object implements ExpressionNode {
 
     /**
      * Compute the result of evaluating both operands and applying the operator to them.
-     * @param symTab symbol table, needed to evaluate the child trees
+     * @param frame the variables' values, needed to evaluate the child trees
      * @return the result of the computation
      */
-    public int evaluate(Map<String, Integer> symTab) {
-        int left = leftChild.evaluate(symTab);
-        int right = rightChild.evaluate(symTab);
+    public int evaluate(Frame frame) {
+        return apply(leftChild.evaluate(frame), rightChild.evaluate(frame));
+    }
 
+    /**
+     * Apply the operator to two values.
+     * @param left the left operand's value
+     * @param right the right operand's value
+     * @return the result of the computation
+     */
+    private int apply(int left, int right) {
         switch (this.operator) {
             case ADD:
                 return left + right;
@@ -72,6 +80,76 @@ public class BinaryOperation extends Object implements ExpressionNode {
         return 0;
     }
 
+    /**
+     * Optimize both operands, then work out the operation if both are
+     * constants, or apply an identity if one of them is: x + 0, 0 + x,
+     * x - 0, x * 1, 1 * x and x / 1 become x, and 0 - x, x * -1, -1 * x
+     * and x / -1 become a negation of x. A division by a constant zero is
+     * kept so it still fails when the program runs. x * 0 is only folded
+     * when x can't fail, and after its operands are optimized such an x
+     * is always a constant.
+     * @return the simpler expression
+     */
+    public ExpressionNode optimize() {
+        ExpressionNode left = leftChild.optimize();
+        ExpressionNode right = rightChild.optimize();
+        if (left instanceof Constant l && right instanceof Constant r
+                && !(operator.equals(DIV) && r.getValue() == 0)) {
+            return new Constant(apply(l.getValue(), r.getValue()));
+        }
+        switch (this.operator) {
+            case ADD:
+                if (isConstant(right, 0)) {
+                    return left;
+                }
+                if (isConstant(left, 0)) {
+                    return right;
+                }
+                break;
+            case SUB:
+                if (isConstant(right, 0)) {
+                    return left;
+                }
+                if (isConstant(left, 0)) {
+                    return UnaryOperation.negate(right);
+                }
+                break;
+            case MUL:
+                if (isConstant(right, 1)) {
+                    return left;
+                }
+                if (isConstant(left, 1)) {
+                    return right;
+                }
+                if (isConstant(right, -1)) {
+                    return UnaryOperation.negate(left);
+                }
+                if (isConstant(left, -1)) {
+                    return UnaryOperation.negate(right);
+                }
+                break;
+            case DIV:
+                if (isConstant(right, 1)) {
+                    return left;
+                }
+                if (isConstant(right, -1)) {
+                    return UnaryOperation.negate(left);
+                }
+                break;
+        }
+        return new BinaryOperation(operator, left, right);
+    }
+
+    /**
+     * Is an expression a given constant?
+     * @param node the expression
+     * @param value the constant
+     * @return true if the expression is a Constant holding the value
+     */
+    private static boolean isConstant(ExpressionNode node, int value) {
+        return node instanceof Constant constant && constant.getValue() == value;
+    }
+
     /**
      * Print, on standard output, the infixDisplay of the two child nodes separated
      * by the operator and surrounded by parentheses. Blanks are inserted throughout.
@@ -107,4 +185,25 @@ public class BinaryOperation extends Object implements ExpressionNode {
             out.println(Soros.DIVIDE);
         }
     }
+
+    /**
+     * Append the instructions that compute the result of this operation.
+     * @param code the program being built
+     */
+    public void compile(List<Soros.Instruction> code) {
+        leftChild.compile(code);
+        rightChild.compile(code);
+        if (operator.equals(ADD)) {
+            code.add(new Soros.Add());
+        }
+        if (operator.equals(SUB)) {
+            code.add(new Soros.Subtract());
+        }
+        if (operator.equals(MUL)) {
+            code.add(new Soros.Multiply());
+        }
+        if (operator.equals(DIV)) {
+            code.add(new Soros.Divide());
+        }
+    }
 }
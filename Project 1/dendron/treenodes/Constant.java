@@ -1,9 +1,10 @@
 package dendron.treenodes;
 
+import dendron.Frame;
 import dendron.machine.Soros;
 
 import java.io.PrintWriter;
-import java.util.Map;
+import java.util.List;
 
 /**
  * An expression node representing a constant, i.e., literal value
@@ -23,6 +24,14 @@ public class Constant extends Object implements ExpressionNode{
         this.value = value;
     }
 
+    /**
+     * the value
+     * @return this Constant's value
+     */
+    public int getValue() {
+        return value;
+    }
+
     /**
      * Print this Constant's value on standard output.
      */
@@ -32,13 +41,21 @@ public class Constant extends Object implements ExpressionNode{
 
     /**
      * Evaluate the constant
-     * @param symTab symbol table, if needed, to fetch variable values
+     * @param frame the variables' values, not needed
      * @return this Constant's value
      */
-    public int evaluate(Map<String, Integer> symTab) {
+    public int evaluate(Frame frame) {
         return value;
     }
 
+    /**
+     * A constant is as simple as it gets.
+     * @return this Constant
+     */
+    public ExpressionNode optimize() {
+        return this;
+    }
+
     /**
      * Emit onto a stream the text of the Soros assembly language instructions that,
      * when executed, saves the constant on the stack.
@@ -48,4 +65,12 @@ public class Constant extends Object implements ExpressionNode{
         out.println(Soros.PUSH + " " + value);
 
     }
+
+    /**
+     * Append the instruction that saves the constant on the stack.
+     * @param code the program being built
+     */
+    public void compile(List<Soros.Instruction> code) {
+        code.add(new Soros.PushConst(value));
+    }
 }
@@ -1,6 +1,9 @@
 package dendron.treenodes;
 
+import dendron.machine.Soros;
+
 import java.io.PrintWriter;
+import java.util.List;
 
 /**
  * The top-level abstraction for all nodes in the Dendron parse tree.
@@ -26,6 +29,17 @@ public interface DendronNode {
      *            usually {@link System#out}
      */
     void compile( PrintWriter out );
+
+    /**
+     * Append to a program the Soros instructions that, when executed,
+     * represent the intent of this {@link DendronNode} and its
+     * descendants. They are the same instructions
+     * {@link #compile(PrintWriter)} writes out as text, with each
+     * variable already given its slot.
+     *
+     * @param code the program being built
+     */
+    void compile( List< Soros.Instruction > code );
 }
 
 
@@ -1,11 +1,11 @@
 package dendron.treenodes;
 
-import java.util.Map;
+import dendron.Frame;
 
 /**
  * An abstraction for all DendronNodes that can be evaluated to
  * get a value back. By definition they do not alter the "state"
- * (symbol table) of the program when evaluated.
+ * (variables) of the program when evaluated.
  *
  * @author RIT CS
  */
@@ -13,8 +13,19 @@ public interface ExpressionNode extends DendronNode {
     /**
      * Evaluate the expression represented by this node.
      *
-     * @param symTab symbol table, if needed, to fetch variable values
+     * @param frame the variables' values, if needed
      * @return the result of the evaluation
      */
-    int evaluate( Map< String, Integer > symTab );
+    int evaluate( Frame frame );
+
+    /**
+     * Build a simpler expression that computes the same value: constant
+     * operations are worked out and identities such as x + 0 are
+     * removed. An operation that could fail when the program runs, such
+     * as a division by zero, is kept, as is every operand that could
+     * fail, so the optimized program fails in the same way.
+     *
+     * @return the simpler expression; possibly this node itself
+     */
+    ExpressionNode optimize();
 }
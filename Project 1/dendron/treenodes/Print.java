@@ -1,9 +1,10 @@
 package dendron.treenodes;
 
+import dendron.Frame;
 import dendron.machine.Soros;
 
 import java.io.PrintWriter;
-import java.util.Map;
+import java.util.List;
 
 /**
  * A node that represents the displaying of the value of an expression on the console
@@ -29,10 +30,18 @@ public class Print extends Object implements ActionNode {
     /**
      * Evaluate the expression and display the result on the console.
      * Precede it with three equal signs so it stands out a little.
-     * @param symTab the table where variable values are stored
+     * @param frame where variable values are stored
      */
-    public void execute(Map<String, Integer> symTab) {
-        System.out.println(PRINT_PREFIX + " " + printee.evaluate(symTab));
+    public void execute(Frame frame) {
+        System.out.println(PRINT_PREFIX + " " + printee.evaluate(frame));
+    }
+
+    /**
+     * Build the same print action with its expression optimized.
+     * @return the optimized print action
+     */
+    public ActionNode optimize() {
+        return new Print(printee.optimize());
     }
 
     /**
@@ -51,4 +60,13 @@ public class Print extends Object implements ActionNode {
         printee.compile(out);
         out.println(Soros.PRINT);
     }
+
+    /**
+     * Append the instructions that perform the print action.
+     * @param code the program being built
+     */
+    public void compile(List<Soros.Instruction> code) {
+        printee.compile(code);
+        code.add(new Soros.Print());
+    }
 }
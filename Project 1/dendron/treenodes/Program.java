@@ -1,9 +1,11 @@
 package dendron.treenodes;
 
+import dendron.Frame;
+import dendron.machine.Soros;
+
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 /**
  * An ActionNode used to represent a sequence of other ActionNodes.
@@ -34,14 +36,27 @@ public class Program {
     /**
      * Execute each ActionNode in this object, from
      * first-added to last-added.
-     * @param symTab the table of variable values
+     * @param frame the variable values
      */
-    public void execute( Map< String, Integer > symTab ) {
+    public void execute( Frame frame ) {
         for ( ActionNode an: this.actions ) {
-            an.execute( symTab );
+            an.execute( frame );
         }
     }
 
+    /**
+     * Build the same program with every action optimized.
+     * @return the optimized program
+     * @see ActionNode#optimize()
+     */
+    public Program optimize() {
+        Program optimized = new Program();
+        for ( ActionNode an: this.actions ) {
+            optimized.addAction( an.optimize() );
+        }
+        return optimized;
+    }
+
     /**
      * Show the infix displays of all children on standard output.
      * The order is first-added to last-added.
@@ -62,4 +77,12 @@ public class Program {
         for ( ActionNode node: this.actions ) node.compile( out );
     }
 
+    /**
+     * Append the Soros instructions for the entire program.
+     * @param code the program being built
+     */
+    public void compile( List< Soros.Instruction > code ) {
+        for ( ActionNode node: this.actions ) node.compile( code );
+    }
+
 }
@@ -1,11 +1,12 @@
 package dendron.treenodes;
 
+import dendron.Frame;
 import dendron.machine.Soros;
 
 import java.io.PrintWriter;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Map;
+import java.util.List;
 
 /**
  * A calculation represented by a unary operator and its operand.
@@ -37,11 +38,19 @@ public class UnaryOperation extends Object implements ExpressionNode{
 
     /**
      * Compute the result of evaluating the expression and applying the operator to it.
-     * @param symTab symbol table, if needed, to fetch variable values (needed to evaluate the child tree)
+     * @param frame the variables' values, if needed to evaluate the child tree
      * @return the result of the computation
      */
-    public int evaluate(Map<String, Integer> symTab) {
-        int result = expr.evaluate(symTab);
+    public int evaluate(Frame frame) {
+        return apply(expr.evaluate(frame));
+    }
+
+    /**
+     * Apply the operator to a value.
+     * @param result the operand's value
+     * @return the result of the operation
+     */
+    private int apply(int result) {
         if (operator.equals(NEG)) {
             return result * -1;
         }
@@ -51,6 +60,38 @@ public class UnaryOperation extends Object implements ExpressionNode{
         return 0;
     }
 
+    /**
+     * Optimize the operand, then work out the operation if the operand is
+     * a constant, and drop a negation of a negation.
+     * @return the simpler expression
+     */
+    public ExpressionNode optimize() {
+        ExpressionNode operand = expr.optimize();
+        if (operator.equals(NEG)) {
+            return negate(operand);
+        }
+        if (operand instanceof Constant constant) {
+            return new Constant(apply(constant.getValue()));
+        }
+        return new UnaryOperation(operator, operand);
+    }
+
+    /**
+     * The simplest negation of an expression that is already optimized.
+     * @param operand the expression to negate
+     * @return a negated constant, the expression inside a negation, or a
+     *         new negation
+     */
+    static ExpressionNode negate(ExpressionNode operand) {
+        if (operand instanceof Constant constant) {
+            return new Constant(-constant.getValue());
+        }
+        if (operand instanceof UnaryOperation inner && inner.operator.equals(NEG)) {
+            return inner.expr;
+        }
+        return new UnaryOperation(NEG, operand);
+    }
+
     /**
      * Print, on standard output, the infixDisplay of the child nodes
      * preceded by the operator and without an intervening blank.
@@ -74,4 +115,18 @@ public class UnaryOperation extends Object implements ExpressionNode{
             out.println(Soros.SQUARE_ROOT);
         }
     }
+
+    /**
+     * Append the instructions that compute the result of this operation.
+     * @param code the program being built
+     */
+    public void compile(List<Soros.Instruction> code) {
+        expr.compile(code);
+        if (operator.equals(NEG)) {
+            code.add(new Soros.Negate());
+        }
+        if (operator.equals(SQRT)) {
+            code.add(new Soros.SquareRoot());
+        }
+    }
 }
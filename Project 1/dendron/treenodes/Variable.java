@@ -1,10 +1,10 @@
 package dendron.treenodes;
 
-import dendron.Errors;
+import dendron.Frame;
 import dendron.machine.Soros;
 
 import java.io.PrintWriter;
-import java.util.Map;
+import java.util.List;
 
 /**
  * The ExpressionNode for a simple variable
@@ -14,14 +14,19 @@ public class Variable extends Object implements ExpressionNode{
 
     /** variable */
     private String name;
+    /** the variable's slot in the frame */
+    private final int slot;
 
     /**
      * Set the name of this new Variable. Note that it is not wrong for more than one Variable
-     * node to refer to the same variable. Its actual value is stored in a symbol table.
+     * node to refer to the same variable. Its actual value is stored in a frame, at the slot
+     * the parser gave its name.
      * @param name the name of this variable
+     * @param slot the variable's slot in the frame
      */
-    public Variable(String name) {
+    public Variable(String name, int slot) {
         this.name = name;
+        this.slot = slot;
     }
 
     /**
@@ -33,14 +38,19 @@ public class Variable extends Object implements ExpressionNode{
 
     /**
      * Evaluate a variable by fetching its value
-     * @param symTab the table containing all variables' values
-     * @return this variable's current value in the symbol table
+     * @param frame the table containing all variables' values
+     * @return this variable's current value in the frame
      */
-    public int evaluate(Map<String, Integer> symTab) {
-        if (!symTab.containsKey(name)) {
-            Errors.report(Errors.Type.UNINITIALIZED, name);
-        }
-        return symTab.get(name);
+    public int evaluate(Frame frame) {
+        return frame.get(slot);
+    }
+
+    /**
+     * A variable can't be simplified.
+     * @return this Variable
+     */
+    public ExpressionNode optimize() {
+        return this;
     }
 
     /**
@@ -51,4 +61,12 @@ public class Variable extends Object implements ExpressionNode{
     public void compile(PrintWriter out) {
         out.println(Soros.LOAD + " " + name);
     }
+
+    /**
+     * Append the instruction that pushes the value of the variable on the stack.
+     * @param code the program being built
+     */
+    public void compile(List<Soros.Instruction> code) {
+        code.add(new Soros.Load(name, slot));
+    }
 }
@@ -0,0 +1,31 @@
+package puzzles.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the puzzle benchmarks with the GC profiler on, so every result
+ * comes with the bytes allocated per operation. The usual JMH options
+ * can be given, e.g. a benchmark name pattern or -p puzzle=water:7:3,5,9.
+ */
+public class BenchmarkMain {
+    /**
+     * Run the benchmarks.
+     * @param args JMH command line options
+     * @throws CommandLineOptionException if the options can't be parsed
+     * @throws RunnerException if a benchmark fails
+     */
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions options = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(options);
+        if (options.getIncludes().isEmpty()) {
+            builder.include(BenchmarkMain.class.getPackageName() + ".*Benchmark");
+        }
+        new Runner(builder.addProfiler(GCProfiler.class).build()).run();
+    }
+}
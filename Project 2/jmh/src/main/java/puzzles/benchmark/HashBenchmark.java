@@ -0,0 +1,102 @@
+package puzzles.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.EncodableConfiguration;
+
+import java.io.FileNotFoundException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of hashing and comparing configurations, which every visited-set
+ * lookup pays. Equal states are compared against a decoded copy, so the
+ * identity shortcut in equals is not taken.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashBenchmark {
+    /** largest number of sampled states */
+    private static final int SAMPLE = 4096;
+
+    /** the puzzle, as understood by {@link Puzzles#parse} */
+    @Param({"jam:data/jam/jam-1.txt", "jam:data/jam/jam-2.txt", "jam:data/jam/jam-3.txt",
+            "water:19:7,11,13,27", "water:6:7,7,7,7,12", "clock:100000:1:50000"})
+    public String puzzle;
+
+    /** the sampled states */
+    private Configuration[] states;
+    /** an equal but distinct copy of each sampled state */
+    private Configuration[] copies;
+    /** index of the next state to use */
+    private int cursor;
+
+    /**
+     * Sample the puzzle's states and copy them.
+     * @throws FileNotFoundException if a Jam file can't be read
+     */
+    @Setup
+    public void setup() throws FileNotFoundException {
+        states = Puzzles.sample(Puzzles.parse(puzzle), SAMPLE);
+        copies = new Configuration[states.length];
+        for (int i = 0; i < states.length; i++) {
+            EncodableConfiguration config = (EncodableConfiguration) states[i];
+            long[] key = new long[config.encodedLength()];
+            config.encode(key, 0);
+            copies[i] = config.decode(key, 0);
+        }
+    }
+
+    /**
+     * move to the next state
+     * @return the index of the state to use
+     */
+    private int next() {
+        int i = cursor;
+        cursor = cursor + 1 == states.length ? 0 : cursor + 1;
+        return i;
+    }
+
+    /**
+     * Hash one state.
+     * @return its hash code
+     */
+    @Benchmark
+    public int hash() {
+        return states[next()].hashCode();
+    }
+
+    /**
+     * Compare a state with an equal copy, the worst case for equals.
+     * @return true
+     */
+    @Benchmark
+    public boolean equalsCopy() {
+        int i = next();
+        return states[i].equals(copies[i]);
+    }
+
+    /**
+     * Compare a state with a different one found near it, the usual case
+     * of a hash collision.
+     * @return false
+     */
+    @Benchmark
+    public boolean equalsOther() {
+        int i = next();
+        return states[i].equals(states[i == 0 ? states.length - 1 : i - 1]);
+    }
+}
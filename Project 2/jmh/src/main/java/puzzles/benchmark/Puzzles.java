@@ -0,0 +1,100 @@
+package puzzles.benchmark;
+
+import puzzles.clock.ClockConfiguration;
+import puzzles.common.solver.Configuration;
+import puzzles.hoppers.model.HoppersConfig;
+import puzzles.jam.model.JamConfig;
+import puzzles.water.WaterConfiguration;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Builds the puzzles named by the benchmark parameters. A puzzle is
+ * written as jam:file, hoppers:file, water:amount:bucket1,bucket2,... or
+ * clock:hours:start:end.
+ */
+final class Puzzles {
+
+    /**
+     * no instances
+     */
+    private Puzzles() {
+    }
+
+    /**
+     * Build the start configuration of a puzzle.
+     * @param puzzle the puzzle, as described above
+     * @return its start configuration
+     * @throws FileNotFoundException if a Jam file can't be read
+     */
+    static Configuration parse(String puzzle) throws FileNotFoundException {
+        String[] parts = puzzle.split(":");
+        switch (parts[0]) {
+            case "jam":
+                return new JamConfig(locate(parts[1]));
+            case "hoppers":
+                return new HoppersConfig(locate(parts[1]));
+            case "water":
+                int[] buckets = Arrays.stream(parts[2].split(",")).mapToInt(Integer::parseInt).toArray();
+                return new WaterConfiguration(Integer.parseInt(parts[1]), buckets);
+            case "clock":
+                return new ClockConfiguration(Integer.parseInt(parts[1]),
+                        Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+            default:
+                throw new IllegalArgumentException("unknown puzzle " + puzzle);
+        }
+    }
+
+    /**
+     * Find a puzzle file. A relative name that is not found in the working
+     * directory is looked up in Project 2, one level up, so the default
+     * boards in data/jam are found when running from the jmh directory.
+     * @param name the file name
+     * @return the name to open
+     * @throws FileNotFoundException if the file is in neither place
+     */
+    private static String locate(String name) throws FileNotFoundException {
+        File file = new File(name);
+        if (file.exists()) {
+            return name;
+        }
+        File parent = new File("..", name);
+        if (!file.isAbsolute() && parent.exists()) {
+            return parent.getPath();
+        }
+        throw new FileNotFoundException(file.getAbsolutePath());
+    }
+
+    /**
+     * The first configurations reached by a breadth first walk from the
+     * start, so the states measured are the ones a search really sees.
+     * @param start the start configuration
+     * @param limit the largest number of configurations to return
+     * @return up to limit distinct configurations, the start first
+     */
+    static Configuration[] sample(Configuration start, int limit) {
+        List<Configuration> sample = new ArrayList<>();
+        Set<Configuration> seen = new HashSet<>();
+        Queue<Configuration> queue = new ArrayDeque<>();
+        seen.add(start);
+        queue.add(start);
+        while (!queue.isEmpty() && sample.size() < limit) {
+            Configuration config = queue.remove();
+            sample.add(config);
+            for (Configuration successor: config.getSuccessors()) {
+                if (seen.add(successor)) {
+                    queue.add(successor);
+                }
+            }
+        }
+        return sample.toArray(new Configuration[0]);
+    }
+}
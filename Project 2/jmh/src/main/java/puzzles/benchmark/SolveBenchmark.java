@@ -0,0 +1,59 @@
+package puzzles.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.Solver;
+
+import java.io.FileNotFoundException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end time of {@link Solver#BFS()}, from the start configuration
+ * to the returned path. Run through {@link BenchmarkMain} to also get the
+ * bytes allocated per solve.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolveBenchmark {
+    /** the puzzle, as understood by {@link Puzzles#parse} */
+    @Param({"jam:data/jam/jam-1.txt", "jam:data/jam/jam-2.txt", "jam:data/jam/jam-3.txt",
+            "water:19:7,11,13,27", "water:6:7,7,7,7,12", "water:1:97,89,83", "clock:100000:1:50000"})
+    public String puzzle;
+
+    /** the start configuration */
+    private Configuration start;
+
+    /**
+     * Build the puzzle.
+     * @throws FileNotFoundException if a Jam file can't be read
+     */
+    @Setup
+    public void setup() throws FileNotFoundException {
+        start = Puzzles.parse(puzzle);
+    }
+
+    /**
+     * Solve the puzzle with a fresh solver.
+     * @return the path found
+     */
+    @Benchmark
+    public Optional<List<Configuration>> bfs() {
+        return new Solver(start).BFS();
+    }
+}
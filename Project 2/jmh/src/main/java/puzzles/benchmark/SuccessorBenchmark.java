@@ -0,0 +1,63 @@
+package puzzles.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import puzzles.common.solver.Configuration;
+
+import java.io.FileNotFoundException;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of generating the successors of one configuration. Each call
+ * expands the next state of a sample taken from a breadth first walk.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SuccessorBenchmark {
+    /** largest number of sampled states */
+    private static final int SAMPLE = 4096;
+
+    /** the puzzle, as understood by {@link Puzzles#parse} */
+    @Param({"jam:data/jam/jam-1.txt", "jam:data/jam/jam-2.txt", "jam:data/jam/jam-3.txt",
+            "water:19:7,11,13,27", "water:6:7,7,7,7,12", "clock:100000:1:50000"})
+    public String puzzle;
+
+    /** the sampled states */
+    private Configuration[] states;
+    /** index of the next state to expand */
+    private int cursor;
+
+    /**
+     * Sample the puzzle's states.
+     * @throws FileNotFoundException if a Jam file can't be read
+     */
+    @Setup
+    public void setup() throws FileNotFoundException {
+        states = Puzzles.sample(Puzzles.parse(puzzle), SAMPLE);
+    }
+
+    /**
+     * Expand one state.
+     * @return its successors
+     */
+    @Benchmark
+    public Collection<Configuration> getSuccessors() {
+        Configuration config = states[cursor];
+        cursor = cursor + 1 == states.length ? 0 : cursor + 1;
+        return config.getSuccessors();
+    }
+}
@@ -1,6 +1,7 @@
 package puzzles.clock;
 
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.ProgressReporter;
 import puzzles.common.solver.Solver;
 
 import java.util.List;
@@ -23,6 +24,7 @@ public class Clock {
                 + ", " + "End: " + args[2]);
 
         Solver solver = new Solver(clock);
+        solver.setListener(new ProgressReporter());
         Optional<List<Configuration>> path = solver.BFS();
 
         if (solver.BFS().isEmpty()) {
@@ -1,6 +1,8 @@
 package puzzles.clock;
 
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.EncodableConfiguration;
+import puzzles.common.solver.ReversibleConfiguration;
 import puzzles.jam.model.JamConfig;
 
 import java.util.ArrayList;
@@ -8,7 +10,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.LinkedList;
 
-public class ClockConfiguration implements Configuration {
+public class ClockConfiguration implements EncodableConfiguration, ReversibleConfiguration {
     /** number of hours */
     private final int hours;
     /** the start point */
@@ -56,11 +58,47 @@ public class ClockConfiguration implements Configuration {
         return new ArrayList<>(Arrays.asList(clockConfig, startConfig));
     }
 
+    /**
+     * Turning the hand either way is undone by turning it back.
+     * @return all predecessors
+     */
+    @Override
+    public Collection<Configuration> getPredecessors() {
+        return getSuccessors();
+    }
+
+    @Override
+    public Collection<Configuration> getGoals() {
+        if (end < 1 || end > hours) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(Arrays.asList(new ClockConfiguration(hours, start, end, end)));
+    }
+
+    @Override
+    public long goalCount() {
+        return end < 1 || end > hours ? 0 : 1;
+    }
+
     @Override
     public boolean isGoal() {
         return currPos == end;
     }
 
+    /**
+     * Turning the hand is the same in both directions, so a position and
+     * its mirror image across the end point are equally far from the end.
+     * @return the position or its mirror image, whichever is smaller
+     */
+    @Override
+    public Configuration canonicalize() {
+        if (end < 1 || end > hours) {
+            return this;
+        }
+        int mirror = Math.floorMod(2 * end - currPos - 1, hours) + 1;
+        return mirror < currPos ? new ClockConfiguration(hours, start, end, mirror) : this;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -74,6 +112,21 @@ public class ClockConfiguration implements Configuration {
         return currPos;
     }
 
+    @Override
+    public int encodedLength() {
+        return 1;
+    }
+
+    @Override
+    public void encode(long[] dest, int offset) {
+        dest[offset] = currPos;
+    }
+
+    @Override
+    public ClockConfiguration decode(long[] src, int offset) {
+        return new ClockConfiguration(hours, start, end, (int) src[offset]);
+    }
+
     @Override
     public String toString() {
         return String.valueOf(currPos);
@@ -0,0 +1,278 @@
+package puzzles.common;
+
+import puzzles.clock.ClockConfiguration;
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.Solver;
+import puzzles.hoppers.model.HoppersConfig;
+import puzzles.jam.model.JamConfig;
+import puzzles.water.WaterConfiguration;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Solves a stream of puzzle jobs in one JVM. Each line of the manifest is
+ * one job:
+ * <pre>
+ *     jam filename
+ *     hoppers filename
+ *     water amount bucket1 bucket2 ...
+ *     clock hours start end
+ * </pre>
+ * Blank lines and lines starting with # are skipped. Jobs are started as
+ * soon as their line is read and run on a work-stealing pool, and each
+ * result is printed the moment it is done, so results come out in
+ * completion order, tagged with their line number. Jobs are keyed by a
+ * hash of the puzzle's content (the file bytes, or the numbers given),
+ * so a puzzle that was already solved, or is being solved, is not solved
+ * again. Only a small summary of each solution is remembered: a path is
+ * printed by the job that found it and then dropped, so a later identical
+ * job reports the summary without the steps.
+ */
+public class BatchSolver {
+    /** runs the searches */
+    private final ExecutorService pool;
+    /** where results go */
+    private final PrintStream out;
+    /** whether to print every step of each solution */
+    private final boolean printPaths;
+    /** solution summaries by content hash, including those still being searched */
+    private final Map<String, CompletableFuture<Solution>> cache = new ConcurrentHashMap<>();
+    /** completion of every job submitted, printing included */
+    private final List<CompletableFuture<Void>> pending = new ArrayList<>();
+
+    /**
+     * The outcome of one search, without the path itself.
+     * @param moves length of the shortest path, or -1 if there is none
+     * @param uniqueCount number of unique configurations seen
+     * @param millis time the search took
+     */
+    private record Solution(int moves, long uniqueCount, double millis) {
+    }
+
+    /**
+     * Create a runner.
+     * @param threads number of worker threads
+     * @param out where results go
+     * @param printPaths true to print every step of each solution
+     */
+    public BatchSolver(int threads, PrintStream out, boolean printPaths) {
+        this.pool = Executors.newWorkStealingPool(threads);
+        this.out = out;
+        this.printPaths = printPaths;
+    }
+
+    /**
+     * Start one job. Its result is printed when it is done.
+     * @param number the job's line number in the manifest
+     * @param job the job, as written in the manifest
+     */
+    public void submit(int number, String job) {
+        submit(number, job.trim().split("\\s+"));
+    }
+
+    /**
+     * Start one job that is already split into words, so a file name may
+     * contain spaces. Its result is printed when it is done.
+     * @param number the job's number, used to tag its result
+     * @param words the puzzle type followed by its arguments
+     */
+    public void submit(int number, String[] words) {
+        String job = String.join(" ", words);
+        String key;
+        try {
+            key = contentHash(words);
+        } catch (IOException e) {
+            print(number, job, "cannot read " + e.getMessage());
+            return;
+        } catch (IllegalArgumentException e) {
+            print(number, job, "bad job: " + e.getMessage());
+            return;
+        }
+        boolean[] cached = {true};
+        CompletableFuture<Solution> solution = cache.computeIfAbsent(key, k -> {
+            cached[0] = false;
+            return CompletableFuture.supplyAsync(() -> solve(number, job, words), pool);
+        });
+        boolean fromCache = cached[0];
+        pending.add(solution.handle((result, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                print(number, job, "failed: " + cause);
+            }
+            else if (fromCache) {
+                print(number, job, result, true);
+            }
+            return null;
+        }));
+    }
+
+    /**
+     * Wait for every job submitted so far and stop the workers.
+     */
+    public void finish() {
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+        pool.shutdown();
+    }
+
+    /**
+     * Hash the content of a job's puzzle, so the same puzzle under another
+     * file name, or with other spacing, is recognized.
+     * @param words the job's words
+     * @return the puzzle type followed by a hash of its content
+     * @throws IOException if the puzzle file can't be read
+     */
+    private static String contentHash(String[] words) throws IOException {
+        byte[] content;
+        switch (words[0]) {
+            case "jam", "hoppers" -> {
+                if (words.length != 2) {
+                    throw new IllegalArgumentException("expected " + words[0] + " filename");
+                }
+                content = Files.readAllBytes(Path.of(words[1]));
+            }
+            case "water", "clock" -> {
+                if (words[0].equals("water") ? words.length < 3 : words.length != 4) {
+                    throw new IllegalArgumentException("wrong number of arguments for " + words[0]);
+                }
+                int[] numbers = Arrays.stream(words, 1, words.length).mapToInt(Integer::parseInt).toArray();
+                content = Arrays.toString(numbers).getBytes(StandardCharsets.UTF_8);
+            }
+            default -> throw new IllegalArgumentException("unknown puzzle " + words[0]);
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return words[0] + ":" + HexFormat.of().formatHex(digest.digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Build and solve one puzzle and print the result, with the path if
+     * asked for. Runs on a worker thread.
+     * @param number the job's line number
+     * @param job the job
+     * @param words the job's words, already checked by {@link #contentHash}
+     * @return the outcome, for later identical jobs
+     */
+    private Solution solve(int number, String job, String[] words) {
+        long begin = System.nanoTime();
+        Configuration start;
+        try {
+            start = switch (words[0]) {
+                case "jam" -> new JamConfig(words[1]);
+                case "hoppers" -> new HoppersConfig(words[1]);
+                case "water" -> new WaterConfiguration(Integer.parseInt(words[1]),
+                        Arrays.stream(words, 2, words.length).mapToInt(Integer::parseInt).toArray());
+                default -> new ClockConfiguration(Integer.parseInt(words[1]),
+                        Integer.parseInt(words[2]), Integer.parseInt(words[3]));
+            };
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+        Solver solver = new Solver(start);
+        Optional<List<Configuration>> path = solver.BFS();
+        Solution solution = new Solution(path.map(p -> p.size() - 1).orElse(-1),
+                solver.getUniqueCount(), (System.nanoTime() - begin) / 1e6);
+        synchronized (out) {
+            print(number, job, solution, false);
+            if (printPaths && path.isPresent()) {
+                int step = 0;
+                for (Configuration configuration: path.get()) {
+                    out.println("Step " + step + ":");
+                    out.println(configuration);
+                    ++step;
+                }
+            }
+        }
+        return solution;
+    }
+
+    /**
+     * Print a solved job.
+     * @param number the job's line number
+     * @param job the job
+     * @param solution the outcome
+     * @param cached true if the outcome came from an earlier identical job
+     */
+    private void print(int number, String job, Solution solution, boolean cached) {
+        String outcome = solution.moves() < 0 ? "No Solution!" : solution.moves() + " moves";
+        String summary = cached
+                ? String.format("%s, unique configs:%d, cached", outcome, solution.uniqueCount())
+                : String.format("%s, unique configs:%d, %.1f ms", outcome, solution.uniqueCount(), solution.millis());
+        print(number, job, summary);
+    }
+
+    /**
+     * Print one line about a job.
+     * @param number the job's line number
+     * @param job the job
+     * @param message what happened
+     */
+    private void print(int number, String job, String message) {
+        synchronized (out) {
+            out.println("[" + number + "] " + job.trim() + ": " + message);
+        }
+    }
+
+    /**
+     * main function
+     * @param args optionally -threads n and -paths, then the manifest
+     *             file; the manifest is read from standard input if no
+     *             file is given
+     * @throws IOException if the manifest can't be read
+     */
+    public static void main(String[] args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean printPaths = false;
+        String manifest = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            }
+            else if (args[i].equals("-paths")) {
+                printPaths = true;
+            }
+            else if (manifest == null && !args[i].startsWith("-")) {
+                manifest = args[i];
+            }
+            else {
+                System.out.println("Usage: java BatchSolver [-threads n] [-paths] [manifest]");
+                System.exit(-1);
+            }
+        }
+
+        BatchSolver batch = new BatchSolver(threads, System.out, printPaths);
+        try (BufferedReader in = manifest == null
+                ? new BufferedReader(new InputStreamReader(System.in))
+                : Files.newBufferedReader(Path.of(manifest))) {
+            int number = 0;
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                ++number;
+                if (!line.isBlank() && !line.trim().startsWith("#")) {
+                    batch.submit(number, line);
+                }
+            }
+        }
+        batch.finish();
+    }
+}
@@ -0,0 +1,107 @@
+package puzzles.common;
+
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.Solver;
+import puzzles.jam.model.JamConfig;
+import puzzles.water.WaterConfiguration;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Times the sequential {@link Solver#BFS()} against
+ * {@link Solver#parallelBFS(int)} on Jam and Water puzzles.
+ */
+public class SolverBenchmark {
+    /** untimed runs before measuring */
+    private static final int WARMUP_RUNS = 3;
+    /** timed runs; the median is reported */
+    private static final int TIMED_RUNS = 7;
+    /** Water puzzles used when none are given */
+    private static final String[] DEFAULT_WATER = {"7:3,5,9", "11:4,4,9", "13:8,12,17", "19:7,11,13,27"};
+
+    /**
+     * Run the benchmark.
+     * @param args the thread count, followed by Jam puzzle files and Water
+     *             puzzles written as amount:bucket1,bucket2,... ; with no
+     *             puzzles, every .txt file in data/jam plus a few Water
+     *             puzzles are used, and the run stops if there are none
+     * @throws FileNotFoundException if a Jam file can't be read
+     */
+    public static void main(String[] args) throws FileNotFoundException {
+        if (args.length < 1) {
+            System.out.println("Usage: java SolverBenchmark threads [jam-file | amount:bucket1,bucket2...]...");
+            System.exit(-1);
+        }
+        int threads = Integer.parseInt(args[0]);
+        List<String> puzzles = new ArrayList<>(Arrays.asList(args).subList(1, args.length));
+        if (puzzles.isEmpty()) {
+            File dir = new File("data" + File.separator + "jam");
+            File[] files = dir.listFiles((parent, name) -> name.endsWith(".txt"));
+            if (files == null || files.length == 0) {
+                System.out.println("No Jam puzzles in " + dir.getAbsolutePath() +
+                        "; run from Project 2 or name the puzzles.");
+                System.exit(-1);
+            }
+            Arrays.sort(files);
+            for (File file : files) {
+                puzzles.add(file.getPath());
+            }
+            puzzles.addAll(Arrays.asList(DEFAULT_WATER));
+        }
+
+        System.out.printf("%-30s %10s %10s %10s %8s %s%n",
+                "Puzzle", "Unique", "BFS ms", "Par ms", "Speedup", "Same path");
+        for (String puzzle : puzzles) {
+            Configuration start = load(puzzle);
+            Solver solver = new Solver(start);
+            Optional<List<Configuration>> sequential = solver.BFS();
+            Optional<List<Configuration>> parallel = new Solver(start).parallelBFS(threads);
+            double sequentialMs = medianMillis(start, s -> s.BFS());
+            double parallelMs = medianMillis(start, s -> s.parallelBFS(threads));
+            System.out.printf("%-30s %10d %10.2f %10.2f %7.2fx %s%n", puzzle, solver.getUniqueCount(),
+                    sequentialMs, parallelMs, sequentialMs / parallelMs, sequential.equals(parallel));
+        }
+    }
+
+    /**
+     * Build the start configuration of a puzzle argument.
+     * @param puzzle a Jam file name or a Water puzzle amount:bucket1,bucket2,...
+     * @return the start configuration
+     * @throws FileNotFoundException if a Jam file can't be read
+     */
+    private static Configuration load(String puzzle) throws FileNotFoundException {
+        if (puzzle.matches("\\d+:\\d+(,\\d+)*")) {
+            String[] parts = puzzle.split(":");
+            int[] capacities = Arrays.stream(parts[1].split(",")).mapToInt(Integer::parseInt).toArray();
+            return new WaterConfiguration(Integer.parseInt(parts[0]), capacities);
+        }
+        return new JamConfig(puzzle);
+    }
+
+    /**
+     * Time one search mode.
+     * @param start the start configuration
+     * @param search the search to run on a fresh solver
+     * @return the median wall time in milliseconds
+     */
+    private static double medianMillis(Configuration start,
+                                       Function<Solver, Optional<List<Configuration>>> search) {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            search.apply(new Solver(start));
+        }
+        long[] times = new long[TIMED_RUNS];
+        for (int i = 0; i < TIMED_RUNS; i++) {
+            long begin = System.nanoTime();
+            search.apply(new Solver(start));
+            times[i] = System.nanoTime() - begin;
+        }
+        Arrays.sort(times);
+        return times[TIMED_RUNS / 2] / 1e6;
+    }
+}
@@ -0,0 +1,181 @@
+package puzzles.common.solver;
+
+import java.util.*;
+
+/**
+ * Informed search for a shortest path, guided by a {@link Heuristic}.
+ * {@link #AStar()} keeps every reached configuration like {@link Solver}
+ * does; {@link #IDAStar()} only keeps the current path, trading repeated
+ * work for memory that grows with the solution length alone.
+ */
+public class AStarSolver {
+    /** returned by the IDA* depth search once a goal is on the path */
+    private static final int FOUND = -1;
+
+    /** start */
+    private final Configuration start;
+    /** estimate of remaining moves */
+    private final Heuristic<Configuration> heuristic;
+    /** number of configurations whose successors were generated */
+    private long expandedCount = 0;
+    /** total number of configurations */
+    private long count = 0;
+
+    /**
+     * Create a solver.
+     * @param start the start configuration
+     * @param heuristic an admissible estimate of the moves left
+     */
+    public AStarSolver(Configuration start, Heuristic<Configuration> heuristic) {
+        this.start = start;
+        this.heuristic = heuristic;
+    }
+
+    /**
+     * A* search. Configurations are expanded in order of moves so far plus
+     * estimated moves left, and one that is reached again more cheaply is
+     * queued again, so inconsistent heuristics still give shortest paths.
+     * Configurations are deduped and estimated on their
+     * {@link Configuration#canonicalize() canonical} form, like
+     * {@link Solver} does, and the path is reported in original coordinates.
+     * @return the shortest path from the start to a goal, if there is one
+     */
+    public Optional<List<Configuration>> AStar() {
+        StateArena arena = StateArena.forStart(start);
+        int[] costs = new int[1 << 10];
+        PriorityQueue<Node> queue = new PriorityQueue<>();
+        Configuration root = start.canonicalize();
+        int startId = arena.addIfAbsent(root, StateArena.NO_PARENT);
+        queue.add(new Node(startId, 0, heuristic.estimate(root)));
+
+        while (!queue.isEmpty()) {
+            Node node = queue.remove();
+            if (node.cost() > costs[node.id()]) {
+                continue;
+            }
+            Configuration config = arena.get(node.id());
+            if (config.isGoal()) {
+                return Optional.of(Solver.restore(arena.path(node.id()), start));
+            }
+            ++expandedCount;
+            int cost = node.cost() + 1;
+            for (Configuration original: config.getSuccessors()) {
+                ++count;
+                Configuration successor = original.canonicalize();
+                int id = arena.addIfAbsent(successor, node.id());
+                if (id >= 0) {
+                    if (id == costs.length) {
+                        costs = Arrays.copyOf(costs, id << 1);
+                    }
+                }
+                else {
+                    id = arena.find(successor);
+                    if (cost >= costs[id]) {
+                        continue;
+                    }
+                    arena.reparent(id, node.id());
+                }
+                costs[id] = cost;
+                queue.add(new Node(id, cost, cost + heuristic.estimate(successor)));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * IDA* search: depth-first searches bounded by moves so far plus
+     * estimated moves left, raising the bound to the smallest value that
+     * was cut off until a goal is reached. Only configurations on the
+     * current path are remembered, so an unsolvable puzzle is only
+     * reported after every cycle-free path has been tried. A path never
+     * goes through two configurations with the same canonical form.
+     * @return the shortest path from the start to a goal, if there is one
+     */
+    public Optional<List<Configuration>> IDAStar() {
+        LinkedList<Configuration> path = new LinkedList<>();
+        path.add(start);
+        Set<Configuration> onPath = new HashSet<>();
+        onPath.add(start.canonicalize());
+        int bound = heuristic.estimate(start);
+        while (true) {
+            int next = boundedSearch(path, onPath, 0, bound);
+            if (next == FOUND) {
+                return Optional.of(path);
+            }
+            if (next == Integer.MAX_VALUE) {
+                return Optional.empty();
+            }
+            bound = next;
+        }
+    }
+
+    /**
+     * Depth-first search below the last configuration on the path.
+     * @param path the path so far; holds the solution if a goal is found
+     * @param onPath the canonical forms of the configurations on the path
+     * @param cost number of moves on the path
+     * @param bound the largest estimated total allowed
+     * @return {@link #FOUND}, or the smallest estimated total over the bound
+     */
+    private int boundedSearch(LinkedList<Configuration> path, Set<Configuration> onPath,
+                              int cost, int bound) {
+        Configuration config = path.getLast();
+        int estimate = cost + heuristic.estimate(config);
+        if (estimate > bound) {
+            return estimate;
+        }
+        if (config.isGoal()) {
+            return FOUND;
+        }
+        ++expandedCount;
+        int min = Integer.MAX_VALUE;
+        for (Configuration successor: config.getSuccessors()) {
+            ++count;
+            Configuration canonical = successor.canonicalize();
+            if (onPath.add(canonical)) {
+                path.addLast(successor);
+                int next = boundedSearch(path, onPath, cost + 1, bound);
+                if (next == FOUND) {
+                    return FOUND;
+                }
+                min = Math.min(min, next);
+                path.removeLast();
+                onPath.remove(canonical);
+            }
+        }
+        return min;
+    }
+
+    /**
+     * number of configurations whose successors were generated
+     * @return number of expanded configurations
+     */
+    public long getExpandedCount() {
+        return this.expandedCount;
+    }
+
+    /**
+     * total configurations
+     * @return total configurations
+     */
+    public long getTotalCount() {
+        return this.count;
+    }
+
+    /**
+     * A queued configuration, ordered by estimated total, preferring the
+     * deeper one on ties.
+     * @param id the arena id of the configuration
+     * @param cost moves from the start
+     * @param estimate cost plus the heuristic estimate
+     */
+    private record Node(int id, int cost, int estimate) implements Comparable<Node> {
+        @Override
+        public int compareTo(Node other) {
+            if (estimate != other.estimate) {
+                return Integer.compare(estimate, other.estimate);
+            }
+            return Integer.compare(other.cost, cost);
+        }
+    }
+}
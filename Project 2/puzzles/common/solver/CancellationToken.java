@@ -0,0 +1,26 @@
+package puzzles.common.solver;
+
+/**
+ * Lets another thread stop a running search. The search polls the token
+ * every few thousand expansions and then reports
+ * {@link SearchResult.Status#CANCELLED}.
+ */
+public class CancellationToken {
+    /** whether cancel was called */
+    private volatile boolean cancelled = false;
+
+    /**
+     * Ask the search holding this token to stop.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * whether cancel was called
+     * @return true once the search should stop
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
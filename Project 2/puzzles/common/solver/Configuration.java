@@ -4,6 +4,7 @@ import puzzles.jam.model.JamConfig;
 
 import java.util.Collection;
 import java.util.LinkedList;
+import java.util.function.Predicate;
 
 /**
  * The representation of a single configuration for a puzzle.
@@ -17,10 +18,39 @@ public interface Configuration {
      */
     public Collection<Configuration> getSuccessors();
 
+    /**
+     * Hand the successors to a visitor one at a time, stopping as soon as
+     * the visitor returns false. Puzzles that can generate their successors
+     * lazily override this so no collection has to be built; by default
+     * it walks {@link #getSuccessors()}. Both must produce the same
+     * successors.
+     * @param visitor called on each successor; returns false to stop
+     * @return true if every successor was visited, false if the visitor stopped
+     */
+    default boolean visitSuccessors(Predicate<? super Configuration> visitor) {
+        for (Configuration successor: getSuccessors()) {
+            if (!visitor.test(successor)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Is the current configuration a goal?
      * @return true if goal; false otherwise
      */
     public boolean isGoal();
 
+    /**
+     * Pick one representative of all configurations that are the same up
+     * to a symmetry of the puzzle. The solvers dedupe on the representative,
+     * so each group of symmetric configurations is only searched once. A
+     * symmetry must map successors to successors and goals to goals.
+     * @return the representative; this configuration if there is no symmetry
+     */
+    default Configuration canonicalize() {
+        return this;
+    }
+
 }
@@ -0,0 +1,102 @@
+package puzzles.common.solver;
+
+/**
+ * A configuration that can be packed into a fixed number of longs. The
+ * solver uses the packed form as the key of its visited set and keeps
+ * only the keys, decoding a state again when it is taken off the frontier.
+ * Every configuration of one puzzle must use the same number of words.
+ */
+public interface EncodableConfiguration extends Configuration {
+    /**
+     * number of longs in the encoding of a state of this puzzle
+     * @return number of longs, at least 1
+     */
+    int encodedLength();
+
+    /**
+     * Pack this configuration.
+     * @param dest where to write the encoding
+     * @param offset index of the first word to write
+     */
+    void encode(long[] dest, int offset);
+
+    /**
+     * Rebuild a configuration of this puzzle from its encoding.
+     * @param src where to read the encoding
+     * @param offset index of the first word to read
+     * @return the decoded configuration, equal to the one encoded
+     */
+    EncodableConfiguration decode(long[] src, int offset);
+
+    /**
+     * Number of bits needed to hold every value from 0 to max.
+     * @param max the largest value that must fit
+     * @return the bit width, at least 1
+     */
+    static int bitsFor(int max) {
+        return Math.max(1, 32 - Integer.numberOfLeadingZeros(max));
+    }
+
+    /**
+     * Number of longs needed to pack fields of the given widths, where a
+     * field never straddles two words.
+     * @param widths the bit width of each field
+     * @return number of longs, at least 1
+     */
+    static int wordsFor(int[] widths) {
+        int words = 1;
+        int used = 0;
+        for (int width : widths) {
+            if (used + width > Long.SIZE) {
+                ++words;
+                used = 0;
+            }
+            used += width;
+        }
+        return words;
+    }
+
+    /**
+     * Pack fields of the given widths into consecutive words, using the
+     * same layout as {@link #wordsFor}.
+     * @param values the field values, each non-negative and fitting its width
+     * @param widths the bit width of each field
+     * @param dest where to write the words
+     * @param offset index of the first word to write
+     */
+    static void pack(int[] values, int[] widths, long[] dest, int offset) {
+        int word = offset;
+        int used = 0;
+        long bits = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (used + widths[i] > Long.SIZE) {
+                dest[word++] = bits;
+                bits = 0;
+                used = 0;
+            }
+            bits |= (long) values[i] << used;
+            used += widths[i];
+        }
+        dest[word] = bits;
+    }
+
+    /**
+     * Unpack fields written by {@link #pack}.
+     * @param src where to read the words
+     * @param offset index of the first word to read
+     * @param widths the bit width of each field
+     * @param values where to write the field values
+     */
+    static void unpack(long[] src, int offset, int[] widths, int[] values) {
+        int word = offset;
+        int used = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (used + widths[i] > Long.SIZE) {
+                ++word;
+                used = 0;
+            }
+            values[i] = (int) ((src[word] >>> used) & ((1L << widths[i]) - 1));
+            used += widths[i];
+        }
+    }
+}
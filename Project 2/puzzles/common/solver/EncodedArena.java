@@ -0,0 +1,70 @@
+package puzzles.common.solver;
+
+import java.util.Arrays;
+
+/**
+ * A {@link StateArena} that keeps only the packed encoding of each
+ * configuration, in a {@link LongKeyTable}, and decodes a state again
+ * whenever it is asked for.
+ */
+final class EncodedArena implements StateArena {
+    /** any configuration of the puzzle, used to decode keys */
+    private final EncodableConfiguration prototype;
+    /** the visited set */
+    private final LongKeyTable table;
+    /** scratch space for encoding a single configuration */
+    private final long[] scratch;
+    /** parent ids, indexed by id */
+    private int[] parents;
+
+    /**
+     * Create an empty arena.
+     * @param prototype any configuration of the puzzle being solved
+     */
+    EncodedArena(EncodableConfiguration prototype) {
+        this.prototype = prototype;
+        this.table = new LongKeyTable(prototype.encodedLength());
+        this.scratch = new long[prototype.encodedLength()];
+        this.parents = new int[1 << 10];
+    }
+
+    @Override
+    public int addIfAbsent(Configuration config, int parent) {
+        ((EncodableConfiguration) config).encode(scratch, 0);
+        int id = table.add(scratch, 0);
+        if (id < 0) {
+            return -1;
+        }
+        if (id == parents.length) {
+            parents = Arrays.copyOf(parents, id << 1);
+        }
+        parents[id] = parent;
+        return id;
+    }
+
+    @Override
+    public int find(Configuration config) {
+        ((EncodableConfiguration) config).encode(scratch, 0);
+        return table.find(scratch, 0);
+    }
+
+    @Override
+    public Configuration get(int id) {
+        return prototype.decode(table.keys(), id * table.width());
+    }
+
+    @Override
+    public int parent(int id) {
+        return parents[id];
+    }
+
+    @Override
+    public void reparent(int id, int parent) {
+        parents[id] = parent;
+    }
+
+    @Override
+    public int size() {
+        return table.size();
+    }
+}
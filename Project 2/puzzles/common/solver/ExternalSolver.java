@@ -0,0 +1,517 @@
+package puzzles.common.solver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+
+/**
+ * Breadth first search for puzzles whose state space does not fit in the
+ * heap. Every level is kept on disk as a file of (state, parent) records
+ * sorted by the packed state. The successors of a level are collected in
+ * a bounded buffer that is sorted and spilled as a run whenever it fills;
+ * the runs are then merged, and the merged level is joined against a
+ * sorted file of every state seen so far, which drops the duplicates
+ * (delayed duplicate detection). The memory budget is split in two
+ * halves that can be in use at the same time: one for the buffer and the
+ * scratch space it is sorted in, one for the streams that merge the runs.
+ * Apart from a few more stream buffers for reading and writing single
+ * files, that is all that is ever in memory, so the heap used stays
+ * within the budget whatever the size of the search (very small budgets
+ * are raised to a fixed minimum buffer and fan-in).
+ */
+public class ExternalSolver {
+    /** size of each file stream buffer, in bytes */
+    private static final int IO_BUFFER = 1 << 16;
+    /** smallest number of records the spill buffer holds */
+    private static final int MIN_CAPACITY = 1 << 10;
+
+    /** start */
+    private final EncodableConfiguration start;
+    /** heap that may be used for buffers, in bytes */
+    private final long memoryBudget;
+    /** directory the search directory is created in, null for the default */
+    private final Path tempRoot;
+    /** number of longs in a packed state */
+    private final int width;
+    /** number of longs in a record: the state followed by its parent */
+    private final int recordLength;
+    /** total number of configurations */
+    private long count = 0;
+    /** total number of unique configurations */
+    private long uniqueCount = 0;
+    /** directory holding the files of the current search */
+    private Path dir;
+    /** number of files created by the current search */
+    private int files;
+
+    /**
+     * Create a solver that spills to the default temporary directory.
+     * @param start the start configuration
+     * @param memoryBudget heap that may be used for buffers, in bytes
+     */
+    public ExternalSolver(EncodableConfiguration start, long memoryBudget) {
+        this(start, memoryBudget, null);
+    }
+
+    /**
+     * Create a solver.
+     * @param start the start configuration
+     * @param memoryBudget heap that may be used for buffers, in bytes
+     * @param tempRoot directory to spill into, null for the default
+     */
+    public ExternalSolver(EncodableConfiguration start, long memoryBudget, Path tempRoot) {
+        this.start = start;
+        this.memoryBudget = memoryBudget;
+        this.tempRoot = tempRoot;
+        this.width = start.encodedLength();
+        this.recordLength = width << 1;
+    }
+
+    /**
+     * BFS Algorithm on disk. Levels are expanded in the order of their
+     * packed states rather than in discovery order, so the path found can
+     * differ from the one {@link Solver#BFS()} finds, but it has the same
+     * length. States are stored in their canonical form, and the path is
+     * reported in original coordinates. The files are deleted when the
+     * search ends.
+     * @return the shortest path from the start to a goal, if there is one
+     * @throws IOException if the temporary files can't be written or read
+     */
+    public Optional<List<Configuration>> BFS() throws IOException {
+        dir = tempRoot == null ? Files.createTempDirectory("bfs") : Files.createTempDirectory(tempRoot, "bfs");
+        files = 0;
+        try {
+            return search();
+        } finally {
+            try (Stream<Path> paths = Files.list(dir)) {
+                for (Path path: paths.toList()) {
+                    Files.delete(path);
+                }
+            }
+            Files.delete(dir);
+        }
+    }
+
+    /**
+     * Run the search level by level.
+     * @return the shortest path from the start to a goal, if there is one
+     * @throws IOException if the temporary files can't be written or read
+     */
+    private Optional<List<Configuration>> search() throws IOException {
+        long[] record = new long[recordLength];
+        EncodableConfiguration root = (EncodableConfiguration) start.canonicalize();
+        root.encode(record, 0);
+        root.encode(record, width);
+        List<Path> levels = new ArrayList<>();
+        Path first = newFile();
+        try (DataOutputStream out = writer(first)) {
+            write(out, record, 0);
+        }
+        levels.add(first);
+        Path visited = first;
+
+        // The buffer and its scratch space share half the budget; the
+        // merge streams get the other half (see mergeAll).
+        int capacity = (int) Math.max(MIN_CAPACITY,
+                Math.min(Integer.MAX_VALUE / recordLength, memoryBudget / 4 / (recordLength * Long.BYTES)));
+        long[] buffer = new long[capacity * recordLength];
+        long[] scratch = new long[capacity * recordLength];
+
+        while (true) {
+            List<Path> runs = new ArrayList<>();
+            int size = 0;
+            try (RecordReader level = new RecordReader(levels.get(levels.size() - 1))) {
+                while (level.next()) {
+                    EncodableConfiguration config = start.decode(level.record, 0);
+                    if (config.isGoal()) {
+                        return Optional.of(path(levels, config, level.record));
+                    }
+                    for (Configuration successor: config.getSuccessors()) {
+                        ++count;
+                        int offset = size * recordLength;
+                        ((EncodableConfiguration) successor.canonicalize()).encode(buffer, offset);
+                        System.arraycopy(level.record, 0, buffer, offset + width, width);
+                        if (++size == capacity) {
+                            runs.add(spill(buffer, scratch, size));
+                            size = 0;
+                        }
+                    }
+                }
+            }
+            if (size > 0) {
+                runs.add(spill(buffer, scratch, size));
+            }
+            if (runs.isEmpty()) {
+                return Optional.empty();
+            }
+
+            Path candidates = mergeAll(runs);
+            Path next = newFile();
+            Path seen = newFile();
+            long added = subtract(candidates, visited, next, seen);
+            Files.delete(candidates);
+            if (visited != first) {
+                Files.delete(visited);
+            }
+            visited = seen;
+            if (added == 0) {
+                return Optional.empty();
+            }
+            uniqueCount += added;
+            levels.add(next);
+        }
+    }
+
+    /**
+     * Sort the buffered records by state, drop repeated states and write
+     * the rest to a new run.
+     * @param buffer the records
+     * @param scratch space for the sort, as large as the buffer
+     * @param size number of records
+     * @return the run
+     * @throws IOException if the run can't be written
+     */
+    private Path spill(long[] buffer, long[] scratch, int size) throws IOException {
+        long[] sorted = sort(buffer, scratch, size);
+        Path run = newFile();
+        try (DataOutputStream out = writer(run)) {
+            for (int i = 0; i < size; i++) {
+                int offset = i * recordLength;
+                if (i == 0 || compare(sorted, offset - recordLength, sorted, offset) != 0) {
+                    write(out, sorted, offset);
+                }
+            }
+        }
+        return run;
+    }
+
+    /**
+     * Stable bottom-up merge sort of records by state, so that of several
+     * records for one state the first one generated comes first.
+     * @param a the records
+     * @param b space as large as a
+     * @param size number of records
+     * @return whichever of a and b holds the sorted records
+     */
+    private long[] sort(long[] a, long[] b, int size) {
+        for (int run = 1; run < size; run <<= 1) {
+            for (int lo = 0; lo < size; lo += run << 1) {
+                int mid = Math.min(lo + run, size);
+                int hi = Math.min(lo + (run << 1), size);
+                int i = lo;
+                int j = mid;
+                for (int k = lo; k < hi; k++) {
+                    int from = (j >= hi || (i < mid && compare(a, i * recordLength, a, j * recordLength) <= 0))
+                            ? i++ : j++;
+                    System.arraycopy(a, from * recordLength, b, k * recordLength, recordLength);
+                }
+            }
+            long[] swap = a;
+            a = b;
+            b = swap;
+        }
+        return a;
+    }
+
+    /**
+     * Merge sorted runs into one sorted run without repeated states, a
+     * group of runs at a time so that only a bounded number of streams
+     * are ever open. The input streams and the output stream of a group
+     * fit in half the memory budget, next to the sort buffers. The runs
+     * are deleted.
+     * @param runs the runs, in the order they were written
+     * @return the merged run
+     * @throws IOException if the runs can't be read or written
+     */
+    private Path mergeAll(List<Path> runs) throws IOException {
+        int fanIn = (int) Math.max(2, Math.min(1 << 10, memoryBudget / 2 / IO_BUFFER - 1));
+        while (runs.size() > 1) {
+            List<Path> merged = new ArrayList<>();
+            for (int i = 0; i < runs.size(); i += fanIn) {
+                List<Path> group = runs.subList(i, Math.min(i + fanIn, runs.size()));
+                merged.add(group.size() == 1 ? group.get(0) : merge(group));
+            }
+            runs = merged;
+        }
+        return runs.get(0);
+    }
+
+    /**
+     * Merge a group of sorted runs. Of several records for one state, the
+     * one from the earliest run is kept. The runs are deleted.
+     * @param runs the runs, in the order they were written
+     * @return the merged run
+     * @throws IOException if the runs can't be read or written
+     */
+    private Path merge(List<Path> runs) throws IOException {
+        Path merged = newFile();
+        List<RecordReader> readers = new ArrayList<>();
+        try (DataOutputStream out = writer(merged)) {
+            PriorityQueue<RecordReader> heap = new PriorityQueue<>((r, s) -> {
+                int order = compare(r.record, 0, s.record, 0);
+                return order != 0 ? order : Integer.compare(r.index, s.index);
+            });
+            for (Path run: runs) {
+                RecordReader reader = new RecordReader(run, readers.size());
+                readers.add(reader);
+                if (reader.next()) {
+                    heap.add(reader);
+                }
+            }
+            long[] last = new long[recordLength];
+            boolean written = false;
+            while (!heap.isEmpty()) {
+                RecordReader reader = heap.poll();
+                if (!written || compare(last, 0, reader.record, 0) != 0) {
+                    write(out, reader.record, 0);
+                    System.arraycopy(reader.record, 0, last, 0, recordLength);
+                    written = true;
+                }
+                if (reader.next()) {
+                    heap.add(reader);
+                }
+            }
+        } finally {
+            for (RecordReader reader: readers) {
+                reader.close();
+            }
+        }
+        for (Path run: runs) {
+            Files.delete(run);
+        }
+        return merged;
+    }
+
+    /**
+     * Join a sorted level against the sorted file of states seen so far.
+     * @param candidates the successors of the last level
+     * @param visited every state seen so far
+     * @param next where to write the candidates that were not seen
+     * @param seen where to write the union of visited and next
+     * @return number of records written to next
+     * @throws IOException if the files can't be read or written
+     */
+    private long subtract(Path candidates, Path visited, Path next, Path seen) throws IOException {
+        long added = 0;
+        try (RecordReader in = new RecordReader(candidates);
+             RecordReader old = new RecordReader(visited);
+             DataOutputStream nextOut = writer(next);
+             DataOutputStream seenOut = writer(seen)) {
+            boolean hasIn = in.next();
+            boolean hasOld = old.next();
+            while (hasIn || hasOld) {
+                int order = !hasIn ? 1 : !hasOld ? -1 : compare(in.record, 0, old.record, 0);
+                if (order < 0) {
+                    write(nextOut, in.record, 0);
+                    write(seenOut, in.record, 0);
+                    ++added;
+                    hasIn = in.next();
+                }
+                else {
+                    write(seenOut, old.record, 0);
+                    hasOld = old.next();
+                    if (order == 0) {
+                        hasIn = in.next();
+                    }
+                }
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Follow the parent states back through the level files.
+     * @param levels the level files, the start's first
+     * @param goal the goal that was reached
+     * @param record the goal's record
+     * @return the path from the start to the goal
+     * @throws IOException if a level file can't be read
+     */
+    private List<Configuration> path(List<Path> levels, Configuration goal, long[] record) throws IOException {
+        LinkedList<Configuration> path = new LinkedList<>();
+        path.addFirst(goal);
+        long[] key = new long[recordLength];
+        System.arraycopy(record, width, key, 0, width);
+        for (int i = levels.size() - 2; i >= 0; i--) {
+            path.addFirst(start.decode(key, 0));
+            if (i > 0) {
+                find(levels.get(i), key);
+                System.arraycopy(key, width, key, 0, width);
+            }
+        }
+        return Solver.restore(path, start);
+    }
+
+    /**
+     * Binary search a sorted level file for a state.
+     * @param level the level file
+     * @param key the state on entry, its whole record on return
+     * @throws IOException if the file can't be read or lacks the state
+     */
+    private void find(Path level, long[] key) throws IOException {
+        int recordBytes = recordLength * Long.BYTES;
+        ByteBuffer bytes = ByteBuffer.allocate(recordBytes);
+        long[] record = new long[recordLength];
+        try (FileChannel channel = FileChannel.open(level)) {
+            long lo = 0;
+            long hi = channel.size() / recordBytes - 1;
+            while (lo <= hi) {
+                long mid = (lo + hi) >>> 1;
+                bytes.clear();
+                while (bytes.hasRemaining()) {
+                    if (channel.read(bytes, mid * recordBytes + bytes.position()) < 0) {
+                        throw new EOFException(level.toString());
+                    }
+                }
+                bytes.flip();
+                for (int i = 0; i < recordLength; i++) {
+                    record[i] = bytes.getLong();
+                }
+                int order = compare(record, 0, key, 0);
+                if (order == 0) {
+                    System.arraycopy(record, 0, key, 0, recordLength);
+                    return;
+                }
+                if (order < 0) {
+                    lo = mid + 1;
+                }
+                else {
+                    hi = mid - 1;
+                }
+            }
+        }
+        throw new IOException("parent state missing from " + level);
+    }
+
+    /**
+     * Order two packed states word by word.
+     * @param a the first state's array
+     * @param ao index of its first word
+     * @param b the second state's array
+     * @param bo index of its first word
+     * @return negative, zero or positive as the first state sorts before,
+     *         with, or after the second
+     */
+    private int compare(long[] a, int ao, long[] b, int bo) {
+        for (int i = 0; i < width; i++) {
+            int order = Long.compare(a[ao + i], b[bo + i]);
+            if (order != 0) {
+                return order;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * a fresh file in the search directory
+     * @return a path that does not exist yet
+     */
+    private Path newFile() {
+        return dir.resolve(files++ + ".run");
+    }
+
+    /**
+     * open a buffered stream writing a file
+     * @param file the file
+     * @return the stream
+     * @throws IOException if the file can't be created
+     */
+    private static DataOutputStream writer(Path file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), IO_BUFFER));
+    }
+
+    /**
+     * Write one record.
+     * @param out the stream
+     * @param src where to read the record
+     * @param offset index of its first word
+     * @throws IOException if the record can't be written
+     */
+    private void write(DataOutputStream out, long[] src, int offset) throws IOException {
+        for (int i = 0; i < recordLength; i++) {
+            out.writeLong(src[offset + i]);
+        }
+    }
+
+    /**
+     * number of configurations generated, duplicates included
+     * @return total configurations
+     */
+    public long getTotalCount() {
+        return this.count;
+    }
+
+    /**
+     * number of distinct configurations found, not counting the start
+     * @return total unique configurations
+     */
+    public long getUniqueCount() {
+        return this.uniqueCount;
+    }
+
+    /**
+     * A buffered cursor over a file of records.
+     */
+    private class RecordReader implements AutoCloseable {
+        /** the stream */
+        private final DataInputStream in;
+        /** position of the file among the runs being merged */
+        private final int index;
+        /** the current record */
+        private final long[] record = new long[recordLength];
+
+        /**
+         * Open a file.
+         * @param file the file
+         * @throws IOException if the file can't be opened
+         */
+        RecordReader(Path file) throws IOException {
+            this(file, 0);
+        }
+
+        /**
+         * Open one of several runs.
+         * @param file the file
+         * @param index position of the file among the runs being merged
+         * @throws IOException if the file can't be opened
+         */
+        RecordReader(Path file, int index) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), IO_BUFFER));
+            this.index = index;
+        }
+
+        /**
+         * Move to the next record.
+         * @return false at the end of the file
+         * @throws IOException if the file can't be read
+         */
+        boolean next() throws IOException {
+            try {
+                for (int i = 0; i < recordLength; i++) {
+                    record[i] = in.readLong();
+                }
+                return true;
+            } catch (EOFException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
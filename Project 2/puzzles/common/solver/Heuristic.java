@@ -0,0 +1,17 @@
+package puzzles.common.solver;
+
+/**
+ * An estimate of how many moves remain from a configuration to the
+ * nearest goal. {@link AStarSolver} only returns shortest paths if the
+ * estimate is admissible, i.e. it never overestimates.
+ *
+ * @param <C> the kind of configuration being estimated
+ */
+public interface Heuristic<C extends Configuration> {
+    /**
+     * Estimate the remaining number of moves.
+     * @param config the configuration to estimate
+     * @return a lower bound on the moves to a goal; 0 for a goal
+     */
+    int estimate(C config);
+}
@@ -0,0 +1,81 @@
+package puzzles.common.solver;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A growable FIFO queue of primitive ints backed by a circular array.
+ * Used as the BFS frontier so that queued states are plain int ids
+ * instead of boxed list nodes.
+ */
+final class IntRingBuffer {
+    /** initial capacity, always a power of two */
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    /** the circular storage */
+    private int[] elements;
+    /** index of the first element */
+    private int head;
+    /** number of elements in the queue */
+    private int size;
+
+    /**
+     * Create an empty queue.
+     */
+    IntRingBuffer() {
+        this.elements = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Add a value to the back of the queue.
+     * @param value the value to add
+     */
+    void add(int value) {
+        if (size == elements.length) {
+            grow();
+        }
+        elements[(head + size) & (elements.length - 1)] = value;
+        ++size;
+    }
+
+    /**
+     * Remove the value at the front of the queue.
+     * @return the removed value
+     * @throws NoSuchElementException if the queue is empty
+     */
+    int remove() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        int value = elements[head];
+        head = (head + 1) & (elements.length - 1);
+        --size;
+        return value;
+    }
+
+    /**
+     * Is the queue empty?
+     * @return true if empty; false otherwise
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * number of queued values
+     * @return number of queued values
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Double the capacity, unrolling the wrapped contents to the front.
+     */
+    private void grow() {
+        int[] bigger = new int[elements.length << 1];
+        int firstPart = elements.length - head;
+        System.arraycopy(elements, head, bigger, 0, firstPart);
+        System.arraycopy(elements, 0, bigger, firstPart, head);
+        elements = bigger;
+        head = 0;
+    }
+}
@@ -0,0 +1,119 @@
+package puzzles.common.solver;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Iterative deepening depth-first search: depth-first passes with a depth
+ * limit that grows by one until a goal is found, so the first goal found
+ * is at the smallest depth. Memory is the current path plus a
+ * {@link TranspositionTable} of fixed size, however large the puzzle
+ * (an {@link EncodableConfiguration} is kept there only as its packed
+ * encoding); the table lets a pass skip configurations it has already searched at
+ * the same depth or shallower, and a smaller table only means more
+ * repeated work.
+ */
+public class IterativeDeepeningSolver {
+    /** default number of transposition table entries */
+    public static final int DEFAULT_TABLE_SIZE = 1 << 20;
+
+    /** start */
+    private final Configuration start;
+    /** configurations already searched in the current pass */
+    private final TranspositionTable table;
+    /** number of configurations whose successors were generated */
+    private long expandedCount = 0;
+    /** total number of configurations */
+    private long count = 0;
+
+    /**
+     * Create a solver with the default table size.
+     * @param start the start configuration
+     */
+    public IterativeDeepeningSolver(Configuration start) {
+        this(start, DEFAULT_TABLE_SIZE);
+    }
+
+    /**
+     * Create a solver.
+     * @param start the start configuration
+     * @param tableSize number of transposition table entries, which bounds
+     *                  the memory used
+     */
+    public IterativeDeepeningSolver(Configuration start, int tableSize) {
+        this.start = start;
+        this.table = new TranspositionTable(tableSize, start);
+    }
+
+    /**
+     * IDDFS. Each pass walks depth first with an explicit stack of
+     * successor iterators, so deep solutions can't overflow the call
+     * stack. A pass that never reached its depth limit has seen every
+     * reachable configuration, which proves there is no solution.
+     * Configurations are deduped on their {@link Configuration#canonicalize()
+     * canonical} form, and the path is made of the original configurations.
+     * @return the shortest path from the start to a goal, if there is one
+     */
+    public Optional<List<Configuration>> IDDFS() {
+        if (start.isGoal()) {
+            return Optional.of(new LinkedList<>(List.of(start)));
+        }
+        List<Configuration> path = new ArrayList<>();
+        List<Iterator<Configuration>> successors = new ArrayList<>();
+        for (int limit = 1, pass = 1; ; limit++, pass++) {
+            boolean cutoff = false;
+            table.visit(start.canonicalize(), 0, pass);
+            path.add(start);
+            successors.add(start.getSuccessors().iterator());
+            ++expandedCount;
+
+            while (!path.isEmpty()) {
+                Iterator<Configuration> next = successors.get(successors.size() - 1);
+                if (!next.hasNext()) {
+                    path.remove(path.size() - 1);
+                    successors.remove(successors.size() - 1);
+                    continue;
+                }
+                Configuration config = next.next();
+                ++count;
+                if (config.isGoal()) {
+                    path.add(config);
+                    return Optional.of(new LinkedList<>(path));
+                }
+                int depth = path.size();
+                if (!table.visit(config.canonicalize(), depth, pass)) {
+                    continue;
+                }
+                if (depth == limit) {
+                    cutoff = true;
+                    continue;
+                }
+                path.add(config);
+                successors.add(config.getSuccessors().iterator());
+                ++expandedCount;
+            }
+            if (!cutoff) {
+                return Optional.empty();
+            }
+        }
+    }
+
+    /**
+     * number of configurations whose successors were generated, over all passes
+     * @return number of expanded configurations
+     */
+    public long getExpandedCount() {
+        return this.expandedCount;
+    }
+
+    /**
+     * total configurations, over all passes
+     * @return total configurations
+     */
+    public long getTotalCount() {
+        return this.count;
+    }
+}
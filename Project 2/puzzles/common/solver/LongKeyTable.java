@@ -0,0 +1,145 @@
+package puzzles.common.solver;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash set of fixed-width keys made of longs. Each key
+ * gets a dense int id in insertion order, so callers can keep per-key data
+ * in plain parallel arrays. Keys are stored back to back in one long array
+ * and nothing is boxed.
+ */
+public final class LongKeyTable {
+    /** initial number of keys, always a power of two */
+    private static final int INITIAL_CAPACITY = 1 << 10;
+
+    /** number of longs in each key */
+    private final int width;
+    /** the keys, indexed by id * width */
+    private long[] keys;
+    /** number of stored keys */
+    private int size;
+    /** open-addressing table holding id + 1 (0 marks an empty slot) */
+    private int[] table;
+
+    /**
+     * Create an empty table.
+     * @param width number of longs in each key
+     */
+    public LongKeyTable(int width) {
+        this.width = width;
+        this.keys = new long[INITIAL_CAPACITY * width];
+        this.table = new int[INITIAL_CAPACITY << 1];
+    }
+
+    /**
+     * Add a key unless it is already present.
+     * @param key where to read the key
+     * @param offset index of the key's first word
+     * @return the new id, or -(existing id) - 1 if the key was present
+     */
+    public int add(long[] key, int offset) {
+        int mask = table.length - 1;
+        int slot = hash(key, offset) & mask;
+        while (table[slot] != 0) {
+            int id = table[slot] - 1;
+            if (matches(id, key, offset)) {
+                return -id - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if ((size + 1) * width > keys.length) {
+            keys = Arrays.copyOf(keys, keys.length << 1);
+        }
+        int id = size++;
+        System.arraycopy(key, offset, keys, id * width, width);
+        table[slot] = id + 1;
+        if (size << 1 > table.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    /**
+     * Look up a key.
+     * @param key where to read the key
+     * @param offset index of the key's first word
+     * @return the key's id, or -1 if it is not present
+     */
+    public int find(long[] key, int offset) {
+        int mask = table.length - 1;
+        int slot = hash(key, offset) & mask;
+        while (table[slot] != 0) {
+            int id = table[slot] - 1;
+            if (matches(id, key, offset)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * The backing key storage. The key with a given id starts at
+     * {@code id * width()}; the array is replaced as the table grows.
+     * @return the key storage
+     */
+    public long[] keys() {
+        return keys;
+    }
+
+    /**
+     * number of longs in each key
+     * @return number of longs in each key
+     */
+    public int width() {
+        return width;
+    }
+
+    /**
+     * number of stored keys
+     * @return number of stored keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Does the stored key with the given id equal the given key?
+     */
+    private boolean matches(int id, long[] key, int offset) {
+        int base = id * width;
+        for (int w = 0; w < width; w++) {
+            if (keys[base + w] != key[offset + w]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Hash a key of {@link #width} longs.
+     */
+    private int hash(long[] key, int offset) {
+        long h = 0;
+        for (int w = 0; w < width; w++) {
+            h = (h + key[offset + w]) * 0x9E3779B97F4A7C15L;
+        }
+        return StateArena.spread((int) (h ^ (h >>> 32)));
+    }
+
+    /**
+     * Double the lookup table and reinsert every id.
+     */
+    private void rehash() {
+        int[] bigger = new int[table.length << 1];
+        int mask = bigger.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hash(keys, id * width) & mask;
+            while (bigger[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            bigger[slot] = id + 1;
+        }
+        table = bigger;
+    }
+}
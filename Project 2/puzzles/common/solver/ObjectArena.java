@@ -0,0 +1,104 @@
+package puzzles.common.solver;
+
+import java.util.Arrays;
+
+/**
+ * A {@link StateArena} that keeps the configuration objects themselves.
+ * Lookups go through an open-addressing table of ids, so the visited set
+ * costs one int slot per state rather than a map entry.
+ */
+final class ObjectArena implements StateArena {
+    /** initial number of states, always a power of two */
+    private static final int INITIAL_CAPACITY = 1 << 10;
+
+    /** configurations, indexed by id */
+    private Configuration[] states;
+    /** parent ids, indexed by id */
+    private int[] parents;
+    /** number of stored configurations */
+    private int size;
+    /** open-addressing table holding id + 1 (0 marks an empty slot) */
+    private int[] table;
+
+    /**
+     * Create an empty arena.
+     */
+    ObjectArena() {
+        this.states = new Configuration[INITIAL_CAPACITY];
+        this.parents = new int[INITIAL_CAPACITY];
+        this.table = new int[INITIAL_CAPACITY << 1];
+    }
+
+    @Override
+    public int addIfAbsent(Configuration config, int parent) {
+        int mask = table.length - 1;
+        int slot = StateArena.spread(config.hashCode()) & mask;
+        while (table[slot] != 0) {
+            if (states[table[slot] - 1].equals(config)) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (size == states.length) {
+            states = Arrays.copyOf(states, size << 1);
+            parents = Arrays.copyOf(parents, size << 1);
+        }
+        int id = size++;
+        states[id] = config;
+        parents[id] = parent;
+        table[slot] = id + 1;
+        if (size << 1 > table.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    @Override
+    public int find(Configuration config) {
+        int mask = table.length - 1;
+        int slot = StateArena.spread(config.hashCode()) & mask;
+        while (table[slot] != 0) {
+            if (states[table[slot] - 1].equals(config)) {
+                return table[slot] - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    @Override
+    public Configuration get(int id) {
+        return states[id];
+    }
+
+    @Override
+    public int parent(int id) {
+        return parents[id];
+    }
+
+    @Override
+    public void reparent(int id, int parent) {
+        parents[id] = parent;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Double the lookup table and reinsert every id.
+     */
+    private void rehash() {
+        int[] bigger = new int[table.length << 1];
+        int mask = bigger.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = StateArena.spread(states[id].hashCode()) & mask;
+            while (bigger[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            bigger[slot] = id + 1;
+        }
+        table = bigger;
+    }
+}
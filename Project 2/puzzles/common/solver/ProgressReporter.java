@@ -0,0 +1,53 @@
+package puzzles.common.solver;
+
+import java.io.PrintStream;
+
+/**
+ * A {@link SolverListener} that prints a progress line at most once per
+ * interval. Nothing is printed for a search that finishes before the
+ * first interval is up, so quick puzzles stay quiet.
+ */
+public class ProgressReporter implements SolverListener {
+    /** where the lines go */
+    private final PrintStream out;
+    /** minimum time between two lines, in nanoseconds */
+    private final long intervalNanos;
+    /** elapsed time after which the next line may be printed */
+    private long nextReport;
+    /** whether any line was printed */
+    private boolean reported = false;
+
+    /**
+     * Report to standard error once a second.
+     */
+    public ProgressReporter() {
+        this(System.err, 1000);
+    }
+
+    /**
+     * Create a reporter.
+     * @param out where the lines go
+     * @param intervalMillis minimum time between two lines
+     */
+    public ProgressReporter(PrintStream out, long intervalMillis) {
+        this.out = out;
+        this.intervalNanos = intervalMillis * 1_000_000;
+        this.nextReport = intervalNanos;
+    }
+
+    @Override
+    public void onProgress(SolverProgress progress) {
+        if (progress.elapsedNanos() >= nextReport) {
+            out.println("Searching: " + progress);
+            reported = true;
+            nextReport = progress.elapsedNanos() + intervalNanos;
+        }
+    }
+
+    @Override
+    public void onFinish(SolverProgress progress) {
+        if (reported) {
+            out.println("Finished: " + progress);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package puzzles.common.solver;
+
+import java.util.Collection;
+
+/**
+ * A configuration whose puzzle can also be searched backwards: it can list
+ * the configurations that lead to it in one move, and it can enumerate
+ * every goal configuration of its puzzle. Implementing this lets
+ * {@link Solver#bidirectionalBFS()} meet in the middle.
+ */
+public interface ReversibleConfiguration extends Configuration {
+    /**
+     * Get the configurations from which this one is reached in one move.
+     * @return all predecessors
+     */
+    Collection<Configuration> getPredecessors();
+
+    /**
+     * Get every goal configuration of this puzzle. A puzzle may also list
+     * goals that can't actually be reached; the backward search from them
+     * just never meets the forward one.
+     * @return all goals; empty if the puzzle has none
+     */
+    Collection<Configuration> getGoals();
+
+    /**
+     * Count the configurations {@link #getGoals()} would list, without
+     * building them, so a search can tell whether starting backwards
+     * from all of them is worth it.
+     * @return the number of goals, Long.MAX_VALUE if too many to count
+     */
+    long goalCount();
+}
@@ -0,0 +1,84 @@
+package puzzles.common.solver;
+
+import java.time.Duration;
+
+/**
+ * Limits on a single search. A search that reaches any of them stops and
+ * reports {@link SearchResult.Status#BUDGET_EXHAUSTED}. Budgets are
+ * immutable; each with-method returns a copy with one limit changed.
+ */
+public final class SearchBudget {
+    /** a budget with no limits */
+    public static final SearchBudget UNLIMITED = new SearchBudget(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+
+    /** largest number of distinct configurations to visit */
+    private final long maxStates;
+    /** longest time to search, in nanoseconds */
+    private final long maxNanos;
+    /** largest heap usage to allow, in bytes */
+    private final long maxMemory;
+
+    /**
+     * Create a budget.
+     * @param maxStates largest number of distinct configurations to visit
+     * @param maxNanos longest time to search, in nanoseconds
+     * @param maxMemory largest heap usage to allow, in bytes
+     */
+    private SearchBudget(long maxStates, long maxNanos, long maxMemory) {
+        this.maxStates = maxStates;
+        this.maxNanos = maxNanos;
+        this.maxMemory = maxMemory;
+    }
+
+    /**
+     * the same budget with a limit on visited configurations
+     * @param maxStates largest number of distinct configurations to visit
+     * @return the new budget
+     */
+    public SearchBudget withMaxStates(long maxStates) {
+        return new SearchBudget(maxStates, maxNanos, maxMemory);
+    }
+
+    /**
+     * the same budget with a limit on wall time
+     * @param maxTime longest time to search
+     * @return the new budget
+     */
+    public SearchBudget withMaxTime(Duration maxTime) {
+        return new SearchBudget(maxStates, maxTime.toNanos(), maxMemory);
+    }
+
+    /**
+     * the same budget with a limit on heap usage, as sampled from the
+     * runtime every few thousand expansions
+     * @param maxMemory largest heap usage to allow, in bytes
+     * @return the new budget
+     */
+    public SearchBudget withMaxMemory(long maxMemory) {
+        return new SearchBudget(maxStates, maxNanos, maxMemory);
+    }
+
+    /**
+     * largest number of distinct configurations to visit
+     * @return the limit, Long.MAX_VALUE for none
+     */
+    public long getMaxStates() {
+        return maxStates;
+    }
+
+    /**
+     * longest time to search
+     * @return the limit in nanoseconds, Long.MAX_VALUE for none
+     */
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * largest heap usage to allow
+     * @return the limit in bytes, Long.MAX_VALUE for none
+     */
+    public long getMaxMemory() {
+        return maxMemory;
+    }
+}
@@ -0,0 +1,52 @@
+package puzzles.common.solver;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * How a search ended, and the path it found if it solved the puzzle.
+ *
+ * @param status how the search ended
+ * @param path the shortest path to a goal when solved, null otherwise
+ */
+public record SearchResult(Status status, List<Configuration> path) {
+    /**
+     * The ways a search can end.
+     */
+    public enum Status {
+        /** a goal was reached */
+        SOLVED,
+        /** every reachable configuration was tried without reaching a goal */
+        NO_SOLUTION,
+        /** a limit of the {@link SearchBudget} was reached first */
+        BUDGET_EXHAUSTED,
+        /** the {@link CancellationToken} was cancelled first */
+        CANCELLED
+    }
+
+    /**
+     * the result of a search that reached a goal
+     * @param path the path to the goal
+     * @return the result
+     */
+    public static SearchResult solved(List<Configuration> path) {
+        return new SearchResult(Status.SOLVED, path);
+    }
+
+    /**
+     * the result of a search that stopped without a path
+     * @param status why it stopped
+     * @return the result
+     */
+    public static SearchResult unsolved(Status status) {
+        return new SearchResult(status, null);
+    }
+
+    /**
+     * the path, if the puzzle was solved
+     * @return the path, or empty for any other status
+     */
+    public Optional<List<Configuration>> getPath() {
+        return Optional.ofNullable(path);
+    }
+}
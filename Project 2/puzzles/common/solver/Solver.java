@@ -1,58 +1,447 @@
 package puzzles.common.solver;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
 
 public class Solver {
+    /** expansions between two progress events */
+    private static final int REPORT_EVERY = 4096;
+    /** most goals a bidirectional search will start its backward side from */
+    private static final long MAX_GOALS = 1 << 12;
     /** start */
     private final Configuration start;
     /** total number of configurations */
-    private int count = 0;
+    private final LongAdder count = new LongAdder();
     /** total number of unique configurations */
-    private int uniqueCount = 0;
+    private final LongAdder uniqueCount = new LongAdder();
+    /** who is told about progress, null for no one */
+    private SolverListener listener;
+    /** when the current search started */
+    private long startTime;
+    /** deepest level reached by the current search */
+    private int depth;
+    /** highest heap usage sampled during the current search */
+    private long peakMemory;
 
     public Solver(Configuration start) {
         this.start = start;
     }
 
-    /** BFS Algorithm */
+    /**
+     * Have progress events of every later search sent to a listener.
+     * @param listener the listener, or null to stop sending events
+     */
+    public void setListener(SolverListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * BFS Algorithm. The frontier is a ring buffer of int ids and each
+     * configuration's predecessor is kept as an int id in a
+     * {@link StateArena}, so no per-state map entries or list nodes
+     * are allocated. A start that is an {@link EncodableConfiguration}
+     * is deduped on its packed encoding instead of on equals/hashCode.
+     * Configurations are deduped by their {@link Configuration#canonicalize()
+     * canonical} form, but the path is reported in original coordinates.
+     * Successors are taken one at a time through
+     * {@link Configuration#visitSuccessors}, so puzzles that generate them
+     * lazily never build a collection of them.
+     * @return the shortest path from the start to a goal, if there is one
+     */
     public Optional<List<Configuration>> BFS() {
-        List<Configuration> queue = new LinkedList<>();
-        queue.add(start);
-        Map<Configuration, Configuration> predecessors = new HashMap<>();
-        predecessors.put(start, start);
-        Configuration curr = null;
+        return BFS(SearchBudget.UNLIMITED, new CancellationToken()).getPath();
+    }
+
+    /**
+     * {@link #BFS()} that gives up once a limit is reached or the token is
+     * cancelled. The number of visited configurations is checked after
+     * every expansion; time, memory and the token every few thousand.
+     * @param budget the limits of the search
+     * @param token lets another thread stop the search
+     * @return the path if solved, otherwise why the search stopped
+     */
+    public SearchResult BFS(SearchBudget budget, CancellationToken token) {
+        begin();
+        StateArena arena = StateArena.forStart(start);
+        IntRingBuffer queue = new IntRingBuffer();
+        queue.add(arena.addIfAbsent(start.canonicalize(), StateArena.NO_PARENT));
+        int goal = -1;
+        // ids are handed out in visiting order, so a level ends where the
+        // arena stood when the level before it was finished
+        int levelEnd = 1;
+        Expander expander = new Expander(arena, queue, budget.getMaxStates());
+        long expanded = 0;
+        SearchResult.Status stopped = null;
 
         while (!queue.isEmpty()) {
-            curr = queue.remove(0);
-            if (curr.isGoal()) {
+            int curr = queue.remove();
+            if (curr >= levelEnd) {
+                ++depth;
+                levelEnd = arena.size();
+            }
+            Configuration config = arena.get(curr);
+            if (config.isGoal()) {
+                goal = curr;
                 break;
             }
-            curr.getSuccessors();
-            for (Configuration config: curr.getSuccessors()) {
-                ++count;
-                if(!predecessors.containsKey(config)) {
-                    ++uniqueCount;
-                    predecessors.put(config, curr);
-                    queue.add(config);
+            expander.parent = curr;
+            config.visitSuccessors(expander);
+            if (arena.size() > budget.getMaxStates()) {
+                stopped = SearchResult.Status.BUDGET_EXHAUSTED;
+                break;
+            }
+            if (++expanded % REPORT_EVERY == 0) {
+                report(queue.size(), arena.size(), expander.generated, false);
+                stopped = checkLimits(budget, token);
+                if (stopped != null) {
+                    break;
+                }
+            }
+        }
+        count.add(expander.generated);
+        uniqueCount.add(arena.size() - 1);
+        report(queue.size(), arena.size(), expander.generated, true);
+
+        if (goal >= 0) {
+            return SearchResult.solved(restore(arena.path(goal), start));
+        }
+        else if (stopped != null) {
+            return SearchResult.unsolved(stopped);
+        }
+        else {
+            return SearchResult.unsolved(SearchResult.Status.NO_SOLUTION);
+        }
+    }
+
+    /**
+     * Check the limits that are too costly to check after every expansion.
+     * @param budget the limits of the search
+     * @param token lets another thread stop the search
+     * @return why the search must stop, or null to go on
+     */
+    private SearchResult.Status checkLimits(SearchBudget budget, CancellationToken token) {
+        if (token.isCancelled()) {
+            return SearchResult.Status.CANCELLED;
+        }
+        if (System.nanoTime() - startTime > budget.getMaxNanos()) {
+            return SearchResult.Status.BUDGET_EXHAUSTED;
+        }
+        Runtime runtime = Runtime.getRuntime();
+        if (runtime.totalMemory() - runtime.freeMemory() > budget.getMaxMemory()) {
+            return SearchResult.Status.BUDGET_EXHAUSTED;
+        }
+        return null;
+    }
+
+    /**
+     * Bidirectional BFS. A forward search from the start and a backward
+     * search from every goal each grow one whole level at a time, always
+     * the side with the smaller frontier, until a configuration is reached
+     * from both sides. Needs a {@link ReversibleConfiguration} start with
+     * at most {@link #MAX_GOALS} goals, and falls back to {@link #BFS()}
+     * otherwise, since a larger goal frontier can cost more than the
+     * whole forward search.
+     * @return the shortest path from the start to a goal, if there is one
+     */
+    public Optional<List<Configuration>> bidirectionalBFS() {
+        if (!(start instanceof ReversibleConfiguration reversible)
+                || reversible.goalCount() > MAX_GOALS) {
+            return BFS();
+        }
+        begin();
+        if (start.isGoal()) {
+            report(0, 1, 0, true);
+            return Optional.of(new LinkedList<>(List.of(start)));
+        }
+        StateArena forward = StateArena.forStart(start);
+        StateArena backward = StateArena.forStart(start);
+        IntRingBuffer forwardQueue = new IntRingBuffer();
+        IntRingBuffer backwardQueue = new IntRingBuffer();
+        forwardQueue.add(forward.addIfAbsent(start.canonicalize(), StateArena.NO_PARENT));
+        for (Configuration goal: reversible.getGoals()) {
+            int id = backward.addIfAbsent(goal.canonicalize(), StateArena.NO_PARENT);
+            if (id >= 0) {
+                backwardQueue.add(id);
+            }
+        }
+
+        while (!forwardQueue.isEmpty() && !backwardQueue.isEmpty()) {
+            boolean expandForward = forwardQueue.size() <= backwardQueue.size();
+            Configuration meeting = expandForward
+                    ? expandLevel(forwardQueue, forward, backward, true)
+                    : expandLevel(backwardQueue, backward, forward, false);
+            ++depth;
+            report(forwardQueue.size() + backwardQueue.size(), forward.size() + backward.size(),
+                    count.sum(), meeting != null);
+            if (meeting != null) {
+                List<Configuration> path = forward.path(forward.find(meeting));
+                int id = backward.parent(backward.find(meeting));
+                for ( ; id != StateArena.NO_PARENT; id = backward.parent(id)) {
+                    path.add(backward.get(id));
+                }
+                return Optional.of(restore(path, start));
+            }
+        }
+        report(0, forward.size() + backward.size(), count.sum(), true);
+        return Optional.empty();
+    }
+
+    /**
+     * Expand every configuration on one level of one side of a
+     * bidirectional search. Because both sides only ever grow by whole
+     * levels, the first configuration found on the other side already
+     * lies on a shortest path.
+     * @param queue the frontier of the side being expanded
+     * @param arena the visited set of the side being expanded
+     * @param other the visited set of the other side
+     * @param forward true to follow successors, false to follow predecessors
+     * @return the configuration where the sides met, or null if they did not
+     */
+    private Configuration expandLevel(IntRingBuffer queue, StateArena arena,
+                                      StateArena other, boolean forward) {
+        for (int level = queue.size(); level > 0; --level) {
+            int curr = queue.remove();
+            Configuration config = arena.get(curr);
+            Collection<Configuration> neighbors = forward
+                    ? config.getSuccessors()
+                    : ((ReversibleConfiguration) config).getPredecessors();
+            for (Configuration original: neighbors) {
+                count.increment();
+                Configuration neighbor = original.canonicalize();
+                int id = arena.addIfAbsent(neighbor, curr);
+                if (id >= 0) {
+                    uniqueCount.increment();
+                    if (other.find(neighbor) >= 0) {
+                        return neighbor;
+                    }
+                    queue.add(id);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parallel level-synchronous BFS on all available processors.
+     * @return the shortest path from the start to a goal, if there is one
+     * @see #parallelBFS(int)
+     */
+    public Optional<List<Configuration>> parallelBFS() {
+        return parallelBFS(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Parallel level-synchronous BFS. The successors of every configuration
+     * on a level are generated in parallel on a {@link ForkJoinPool}, and
+     * each new configuration is claimed in a concurrent visited map. When
+     * several parents reach the same configuration, the claim of the one
+     * that comes first in frontier order wins, so the result is the same
+     * path {@link #BFS()} finds no matter how the work was scheduled.
+     * The counters stop at the level holding the goal, so they can be
+     * lower than those of {@link #BFS()}.
+     * @param threads number of worker threads
+     * @return the shortest path from the start to a goal, if there is one
+     */
+    public Optional<List<Configuration>> parallelBFS(int threads) {
+        begin();
+        ConcurrentHashMap<Configuration, Claim> visited = new ConcurrentHashMap<>();
+        Configuration root = start.canonicalize();
+        visited.put(root, new Claim(null, 0, 0));
+        List<Configuration> level = List.of(root);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            for (int depth = 1; !level.isEmpty(); ++depth) {
+                for (Configuration config: level) {
+                    if (config.isGoal()) {
+                        report(level.size(), visited.size(), count.sum(), true);
+                        LinkedList<Configuration> path = new LinkedList<>();
+                        for (Configuration curr = config; curr != null; curr = visited.get(curr).parent()) {
+                            path.addFirst(curr);
+                        }
+                        return Optional.of(restore(path, start));
+                    }
                 }
+                List<Configuration> frontier = level;
+                int claimDepth = depth;
+                List<List<Configuration>> successors = pool.submit(() ->
+                        IntStream.range(0, frontier.size()).parallel()
+                                .mapToObj(i -> claimSuccessors(frontier.get(i), i, claimDepth, visited))
+                                .toList()
+                ).get();
+
+                List<Configuration> next = new ArrayList<>();
+                for (int i = 0; i < successors.size(); i++) {
+                    List<Configuration> children = successors.get(i);
+                    count.add(children.size());
+                    for (int j = 0; j < children.size(); j++) {
+                        Claim claim = visited.get(children.get(j));
+                        if (claim.depth() == depth && claim.rank() == Claim.rank(i, j)) {
+                            next.add(children.get(j));
+                        }
+                    }
+                }
+                uniqueCount.add(next.size());
+                level = next;
+                this.depth = depth;
+                report(level.size(), visited.size(), count.sum(), false);
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdown();
         }
-        List<Configuration> path = new LinkedList<>();
-        assert curr != null;
-        if (curr.isGoal()) {
-            Configuration currNode = curr;
-            while (!currNode.equals(start)) {
-                path.add(0, currNode);
-                currNode = predecessors.get(currNode);
+        report(0, visited.size(), count.sum(), true);
+        return Optional.empty();
+    }
+
+    /**
+     * Turn a path of canonical configurations back into a path of moves
+     * from the real start. Each step takes the first successor of the
+     * previous configuration that has the next canonical form; one always
+     * exists because a symmetry maps successors to successors.
+     * @param canonical the path found by a search over canonical forms
+     * @param start the start configuration
+     * @return the same path in original coordinates
+     */
+    static List<Configuration> restore(List<Configuration> canonical, Configuration start) {
+        LinkedList<Configuration> path = new LinkedList<>();
+        Configuration curr = start;
+        path.add(curr);
+        for (Configuration next: canonical.subList(1, canonical.size())) {
+            for (Configuration successor: curr.getSuccessors()) {
+                if (successor.canonicalize().equals(next)) {
+                    curr = successor;
+                    break;
+                }
             }
-            path.add(0, start);
+            path.add(curr);
         }
+        return path;
+    }
 
-        if (path.isEmpty()) {
-            return Optional.empty();
+    /**
+     * Reset the progress of a search that is about to start.
+     */
+    private void begin() {
+        startTime = System.nanoTime();
+        depth = 0;
+        peakMemory = 0;
+    }
+
+    /**
+     * Send a progress event, if anyone is listening.
+     * @param frontier number of configurations waiting to be expanded
+     * @param visited number of distinct configurations seen
+     * @param total number of successors generated
+     * @param finished whether the search is over
+     */
+    private void report(long frontier, long visited, long total, boolean finished) {
+        if (listener == null) {
+            return;
+        }
+        Runtime runtime = Runtime.getRuntime();
+        peakMemory = Math.max(peakMemory, runtime.totalMemory() - runtime.freeMemory());
+        SolverProgress progress = new SolverProgress(depth, frontier, visited, total,
+                System.nanoTime() - startTime, peakMemory);
+        if (finished) {
+            listener.onFinish(progress);
         }
         else {
-            return Optional.of(path);
+            listener.onProgress(progress);
+        }
+    }
+
+    /**
+     * Generate the successors of one frontier configuration and try to
+     * claim each of them for it.
+     * @param config the configuration to expand
+     * @param index its position in the frontier
+     * @param depth the depth of its successors
+     * @param visited the shared visited map
+     * @return the successors in generation order
+     */
+    private static List<Configuration> claimSuccessors(Configuration config, int index, int depth,
+                                                       ConcurrentHashMap<Configuration, Claim> visited) {
+        List<Configuration> children = new ArrayList<>();
+        config.visitSuccessors(successor -> children.add(successor.canonicalize()));
+        for (int j = 0; j < children.size(); j++) {
+            Claim claim = new Claim(config, depth, Claim.rank(index, j));
+            visited.merge(children.get(j), claim, Claim::earliest);
+        }
+        return children;
+    }
+
+    /**
+     * Takes the successors of one configuration at a time during a BFS:
+     * each new one is given an id in the arena and queued. Stops the
+     * configuration's successors early once the arena is over budget.
+     */
+    private static final class Expander implements Predicate<Configuration> {
+        /** the visited configurations */
+        private final StateArena arena;
+        /** the frontier */
+        private final IntRingBuffer queue;
+        /** most configurations the arena may hold */
+        private final long maxStates;
+        /** id of the configuration being expanded */
+        private int parent;
+        /** number of successors generated so far */
+        private long generated;
+
+        /**
+         * Create an expander for one search.
+         * @param arena the visited configurations
+         * @param queue the frontier
+         * @param maxStates most configurations the arena may hold
+         */
+        Expander(StateArena arena, IntRingBuffer queue, long maxStates) {
+            this.arena = arena;
+            this.queue = queue;
+            this.maxStates = maxStates;
+        }
+
+        @Override
+        public boolean test(Configuration successor) {
+            ++generated;
+            int id = arena.addIfAbsent(successor.canonicalize(), parent);
+            if (id >= 0) {
+                queue.add(id);
+            }
+            return arena.size() <= maxStates;
+        }
+    }
+
+    /**
+     * Who reached a configuration first in a parallel search: its parent,
+     * its depth, and the rank of the parent's frontier slot and successor
+     * position. Lower depth, then lower rank, wins.
+     * @param parent the configuration it was reached from, null for the start
+     * @param depth its depth
+     * @param rank frontier index in the high half, successor index in the low half
+     */
+    private record Claim(Configuration parent, int depth, long rank) {
+        /**
+         * rank of the j-th successor of the i-th frontier configuration
+         */
+        static long rank(int i, int j) {
+            return ((long) i << 32) | j;
+        }
+
+        /**
+         * the earlier of two claims on the same configuration
+         */
+        static Claim earliest(Claim a, Claim b) {
+            if (a.depth != b.depth) {
+                return a.depth < b.depth ? a : b;
+            }
+            return a.rank <= b.rank ? a : b;
         }
     }
 
@@ -60,16 +449,16 @@ public class Solver {
      * total configurations
      * @return total configurations
      */
-    public int getTotalCount() {
-        return this.count;
+    public long getTotalCount() {
+        return this.count.sum();
     }
 
     /**
      * total unique configurations
      * @return total unique configurations
      */
-    public int getUniqueCount() {
-        return this.uniqueCount;
+    public long getUniqueCount() {
+        return this.uniqueCount.sum();
     }
 
 }
@@ -0,0 +1,21 @@
+package puzzles.common.solver;
+
+/**
+ * Receives live progress from a {@link Solver} while it searches. Events
+ * are sent from the searching thread, every few thousand expansions and
+ * whenever a level is finished, so implementations should return quickly.
+ */
+public interface SolverListener {
+    /**
+     * The search has moved on.
+     * @param progress where the search is now
+     */
+    void onProgress(SolverProgress progress);
+
+    /**
+     * The search is over, whether or not a goal was found.
+     * @param progress where the search stopped
+     */
+    default void onFinish(SolverProgress progress) {
+    }
+}
@@ -0,0 +1,29 @@
+package puzzles.common.solver;
+
+/**
+ * A snapshot of a running search, handed to a {@link SolverListener}.
+ *
+ * @param depth the deepest level reached so far
+ * @param frontierSize number of configurations waiting to be expanded
+ * @param visitedSize number of distinct configurations seen
+ * @param totalCount number of successors generated, duplicates included
+ * @param elapsedNanos time since the search started
+ * @param peakMemory highest heap usage sampled during the search, in bytes
+ */
+public record SolverProgress(int depth, long frontierSize, long visitedSize, long totalCount,
+                             long elapsedNanos, long peakMemory) {
+    /**
+     * distinct configurations found per second
+     * @return distinct configurations found per second
+     */
+    public double statesPerSecond() {
+        return elapsedNanos == 0 ? 0 : visitedSize * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("depth %d, frontier %d, visited %d, total %d, %.0f states/s, %d MB peak, %.1f s",
+                depth, frontierSize, visitedSize, totalCount, statesPerSecond(),
+                peakMemory >> 20, elapsedNanos / 1e9);
+    }
+}
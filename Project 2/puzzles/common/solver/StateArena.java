@@ -0,0 +1,94 @@
+package puzzles.common.solver;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * An append-only store of the configurations seen by a search. Every
+ * configuration gets a dense int id in discovery order, and its parent is
+ * recorded as an int id instead of as a map value.
+ */
+interface StateArena {
+    /** parent id of a root configuration */
+    int NO_PARENT = -1;
+
+    /**
+     * Store a configuration unless an equal one is already present.
+     * @param config the configuration to store
+     * @param parent the id of the configuration it was reached from
+     * @return the new id, or -1 if an equal configuration was already stored
+     */
+    int addIfAbsent(Configuration config, int parent);
+
+    /**
+     * Look up a configuration without storing it.
+     * @param config the configuration to look for
+     * @return the id of the equal stored configuration, or -1 if there is none
+     */
+    int find(Configuration config);
+
+    /**
+     * the configuration with the given id
+     * @param id an id returned by {@link #addIfAbsent}
+     * @return the configuration
+     */
+    Configuration get(int id);
+
+    /**
+     * the parent of the configuration with the given id
+     * @param id an id returned by {@link #addIfAbsent}
+     * @return the parent id, or {@link #NO_PARENT}
+     */
+    int parent(int id);
+
+    /**
+     * Record a new parent for a stored configuration, when a search finds
+     * a cheaper way to reach it.
+     * @param id an id returned by {@link #addIfAbsent}
+     * @param parent the id of the new parent
+     */
+    void reparent(int id, int parent);
+
+    /**
+     * number of stored configurations
+     * @return number of stored configurations
+     */
+    int size();
+
+    /**
+     * Follow parent ids from a configuration back to its root.
+     * @param id the id of the last configuration on the path
+     * @return the configurations from the root to the given one
+     */
+    default List<Configuration> path(int id) {
+        LinkedList<Configuration> path = new LinkedList<>();
+        for (int curr = id; curr != NO_PARENT; curr = parent(curr)) {
+            path.addFirst(get(curr));
+        }
+        return path;
+    }
+
+    /**
+     * Pick the arena that suits a puzzle: encodable configurations are
+     * stored as packed keys, anything else as objects.
+     * @param start the start configuration of the search
+     * @return an empty arena
+     */
+    static StateArena forStart(Configuration start) {
+        if (start instanceof EncodableConfiguration encodable) {
+            return new EncodedArena(encodable);
+        }
+        return new ObjectArena();
+    }
+
+    /**
+     * Mix the high bits of a hash code into the low ones, since the table
+     * index only uses the low bits.
+     * @param h a hash code
+     * @return the mixed hash
+     */
+    static int spread(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,167 @@
+package puzzles.common.solver;
+
+/**
+ * A fixed-size memory of the configurations a depth-first search has
+ * already been through, and the shallowest depth each was reached at.
+ * Each configuration hashes to a pair of slots: the first keeps whichever
+ * entry is shallowest (it prunes the most), the second always takes the
+ * newest entry. Entries from an earlier pass of the search are treated as
+ * empty, so the table never has to be cleared. Losing an entry only costs
+ * repeated work, never a wrong answer.
+ * <p>
+ * For a start that is an {@link EncodableConfiguration} the table keeps
+ * only the packed encodings in one long array, so its size is fixed
+ * by its capacity however big the configurations are. Other
+ * configurations are kept as objects.
+ */
+final class TranspositionTable {
+    /** the configurations, two slots per bucket; null if they are packed */
+    private final Configuration[] keys;
+    /** the packed configurations, width longs per slot; null if not packed */
+    private final long[] packed;
+    /** number of longs in a packed configuration */
+    private final int width;
+    /** the encoding of the configuration being visited */
+    private final long[] scratch;
+    /** depth each configuration was reached at */
+    private final int[] depths;
+    /** pass each entry was made in */
+    private final int[] passes;
+    /** number of buckets minus one */
+    private final int mask;
+
+    /**
+     * Create an empty table.
+     * @param capacity largest number of entries, rounded up to a power of two
+     * @param start the start configuration, which decides whether entries
+     *              are packed
+     */
+    TranspositionTable(int capacity, Configuration start) {
+        int buckets = Integer.highestOneBit(Math.max(2, capacity - 1) >> 1) << 1;
+        if (start instanceof EncodableConfiguration encodable) {
+            this.keys = null;
+            this.width = encodable.encodedLength();
+            this.packed = new long[(buckets << 1) * width];
+            this.scratch = new long[width];
+        }
+        else {
+            this.keys = new Configuration[buckets << 1];
+            this.width = 0;
+            this.packed = null;
+            this.scratch = null;
+        }
+        this.depths = new int[buckets << 1];
+        this.passes = new int[buckets << 1];
+        this.mask = buckets - 1;
+    }
+
+    /**
+     * Record that a configuration was reached, unless it was already
+     * reached at the same depth or shallower in this pass.
+     * @param config the configuration
+     * @param depth moves from the start
+     * @param pass the current pass, greater than 0
+     * @return false if the configuration need not be searched again
+     */
+    boolean visit(Configuration config, int depth, int pass) {
+        int first = (bucket(config) & mask) << 1;
+        for (int slot = first; slot <= first + 1; slot++) {
+            if (passes[slot] == pass && matches(slot, config)) {
+                if (depths[slot] <= depth) {
+                    return false;
+                }
+                depths[slot] = depth;
+                return true;
+            }
+        }
+        if (passes[first] != pass || depth <= depths[first]) {
+            if (passes[first] == pass) {
+                move(first, first + 1);
+            }
+            put(first, config, depth, pass);
+        }
+        else {
+            put(first + 1, config, depth, pass);
+        }
+        return true;
+    }
+
+    /**
+     * Hash a configuration, packing it into {@link #scratch} first if
+     * entries are packed.
+     * @param config the configuration
+     * @return its hash
+     */
+    private int bucket(Configuration config) {
+        if (packed == null) {
+            return StateArena.spread(config.hashCode());
+        }
+        ((EncodableConfiguration) config).encode(scratch, 0);
+        long h = 0;
+        for (long word : scratch) {
+            h = (h + word) * 0x9E3779B97F4A7C15L;
+        }
+        return StateArena.spread((int) (h ^ (h >>> 32)));
+    }
+
+    /**
+     * Does a slot hold the configuration just hashed by {@link #bucket}?
+     * @param slot the slot
+     * @param config the configuration
+     * @return true if it does
+     */
+    private boolean matches(int slot, Configuration config) {
+        if (packed == null) {
+            return keys[slot].equals(config);
+        }
+        int base = slot * width;
+        for (int w = 0; w < width; w++) {
+            if (packed[base + w] != scratch[w]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copy an entry to another slot.
+     * @param from the slot to copy
+     * @param to the slot to fill
+     */
+    private void move(int from, int to) {
+        if (packed == null) {
+            keys[to] = keys[from];
+        }
+        else {
+            System.arraycopy(packed, from * width, packed, to * width, width);
+        }
+        depths[to] = depths[from];
+        passes[to] = passes[from];
+    }
+
+    /**
+     * Fill a slot with the configuration just hashed by {@link #bucket}.
+     * @param slot the slot
+     * @param config the configuration
+     * @param depth moves from the start
+     * @param pass the current pass
+     */
+    private void put(int slot, Configuration config, int depth, int pass) {
+        if (packed == null) {
+            keys[slot] = config;
+        }
+        else {
+            System.arraycopy(scratch, 0, packed, slot * width, width);
+        }
+        depths[slot] = depth;
+        passes[slot] = pass;
+    }
+
+    /**
+     * number of entries the table can hold
+     * @return the capacity
+     */
+    int capacity() {
+        return depths.length;
+    }
+}
@@ -0,0 +1,48 @@
+package puzzles.common.solver;
+
+/**
+ * Zobrist hashing: a state's hash is the XOR of one random key per
+ * feature it has (a car at a position, a bucket holding an amount), so a
+ * move that changes a few features updates the hash in constant time by
+ * XORing the old keys out and the new ones in. Keys come from a fixed
+ * mixing function instead of a random table, so they need no memory,
+ * work for any range of values, and agree between separately loaded
+ * copies of the same puzzle.
+ */
+public final class Zobrist {
+    /**
+     * no instances
+     */
+    private Zobrist() {
+    }
+
+    /**
+     * The key of one feature of a state.
+     * @param feature what is described, e.g. a bucket or a car
+     * @param value its value, e.g. an amount or a position
+     * @return a well mixed 64-bit key
+     */
+    public static long key(long feature, long value) {
+        return mix(mix(feature) + value);
+    }
+
+    /**
+     * The SplitMix64 finalizer.
+     * @param z any value
+     * @return its mix
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * The int hash code for a Zobrist hash.
+     * @param hash the 64-bit hash
+     * @return both halves folded together
+     */
+    public static int hashCode(long hash) {
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
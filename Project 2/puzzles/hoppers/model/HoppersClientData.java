@@ -1,4 +1,27 @@
 package puzzles.hoppers.model;
 
+/**
+ * The message the model sends its observers with each update.
+ */
 public class HoppersClientData {
+
+    /** message to display in the game */
+    private final String message;
+
+    /**
+     * HoppersClientData
+     * @param message message to display in the game
+     */
+    public HoppersClientData(String message) {
+        this.message = message;
+    }
+
+    /**
+     * to string method
+     * @return the message
+     */
+    @Override
+    public String toString() {
+        return message;
+    }
 }
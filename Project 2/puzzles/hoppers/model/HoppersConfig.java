@@ -1,6 +1,353 @@
 package puzzles.hoppers.model;
 
-// TODO: implement your HoppersConfig for the common solver
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.EncodableConfiguration;
 
-public class HoppersConfig {
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Scanner;
+
+/**
+ * A Hoppers configuration. Only some cells of the grid are lily pads, so
+ * the pads are numbered and the board is kept as a bitmask of the pads
+ * holding green frogs plus the pad of the red frog. Every jump a frog can
+ * make from a pad is worked out once per puzzle, so a successor is just
+ * two masks changed. Boards of at most 64 lily pads are supported.
+ */
+public class HoppersConfig implements EncodableConfiguration {
+    /** a cell that is not a lily pad */
+    public static final char WATER = '*';
+    /** an empty lily pad */
+    public static final char EMPTY = '.';
+    /** a lily pad holding a green frog */
+    public static final char GREEN = 'G';
+    /** a lily pad holding the red frog */
+    public static final char RED = 'R';
+
+    /** the pads and their jumps, shared by every configuration of the puzzle */
+    private final Board board;
+    /** bit i set when pad i holds a green frog */
+    private final long greens;
+    /** the pad holding the red frog */
+    private final int red;
+
+    /**
+     * Construct the initial configuration from an input file: the number
+     * of rows and columns, then one line per row of the cells *, ., G
+     * and R, with or without spaces between them.
+     * @param filename the file name to read
+     * @throws FileNotFoundException if file is not found
+     */
+    public HoppersConfig(String filename) throws FileNotFoundException {
+        Scanner in = new Scanner(new File(filename));
+        int rows = in.nextInt();
+        int cols = in.nextInt();
+        in.nextLine();
+        char[][] cells = new char[rows][];
+        for (int row = 0; row < rows; row++) {
+            cells[row] = in.nextLine().replaceAll("\\s+", "").toCharArray();
+            if (cells[row].length != cols) {
+                throw new IllegalArgumentException("row " + row + " of " + filename + " is not " + cols + " cells");
+            }
+        }
+        this.board = new Board(cells);
+        long greens = 0;
+        int red = -1;
+        for (int pad = 0; pad < board.pads; pad++) {
+            char cell = cells[board.padRows[pad]][board.padCols[pad]];
+            if (cell == GREEN) {
+                greens |= 1L << pad;
+            }
+            else if (cell == RED) {
+                red = pad;
+            }
+        }
+        if (red < 0) {
+            throw new IllegalArgumentException(filename + " has no red frog");
+        }
+        this.greens = greens;
+        this.red = red;
+    }
+
+    /**
+     * A configuration of the same puzzle.
+     * @param board the pads and their jumps
+     * @param greens the pads holding green frogs
+     * @param red the pad holding the red frog
+     */
+    private HoppersConfig(Board board, long greens, int red) {
+        this.board = board;
+        this.greens = greens;
+        this.red = red;
+    }
+
+    /**
+     * Every jump of a frog, green or red, over a green frog onto an empty
+     * pad. The jumped frog is taken off the board.
+     * @return all successors
+     */
+    @Override
+    public Collection<Configuration> getSuccessors() {
+        List<Configuration> successors = new ArrayList<>();
+        long occupied = greens | (1L << red);
+        for (long frogs = occupied; frogs != 0; frogs &= frogs - 1) {
+            int from = Long.numberOfTrailingZeros(frogs);
+            int[] jumps = board.jumps[from];
+            for (int i = 0; i < jumps.length; i += 2) {
+                long over = 1L << jumps[i];
+                long to = 1L << jumps[i + 1];
+                if ((greens & over) != 0 && (occupied & to) == 0) {
+                    if (from == red) {
+                        successors.add(new HoppersConfig(board, greens & ~over, jumps[i + 1]));
+                    }
+                    else {
+                        successors.add(new HoppersConfig(board, (greens & ~over & ~(1L << from)) | to, red));
+                    }
+                }
+            }
+        }
+        return successors;
+    }
+
+    /**
+     * The puzzle is solved when only the red frog is left.
+     * @return true if no green frog is left
+     */
+    @Override
+    public boolean isGoal() {
+        return greens == 0;
+    }
+
+    /**
+     * Jump a frog from one cell to another, if that is a legal move.
+     * @param fromRow row of the frog
+     * @param fromCol column of the frog
+     * @param toRow row to jump to
+     * @param toCol column to jump to
+     * @return the configuration after the jump, or null if it is not legal
+     */
+    public HoppersConfig jump(int fromRow, int fromCol, int toRow, int toCol) {
+        int from = board.padAt(fromRow, fromCol);
+        int to = board.padAt(toRow, toCol);
+        if (from < 0 || to < 0) {
+            return null;
+        }
+        for (Configuration successor: getSuccessors()) {
+            HoppersConfig next = (HoppersConfig) successor;
+            boolean frogLeft = next.get(fromRow, fromCol) == EMPTY;
+            boolean frogArrived = next.get(toRow, toCol) == get(fromRow, fromCol);
+            if (frogLeft && frogArrived) {
+                return next;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * What is in a cell.
+     * @param row the row
+     * @param col the column
+     * @return {@link #WATER}, {@link #EMPTY}, {@link #GREEN} or {@link #RED}
+     */
+    public char get(int row, int col) {
+        int pad = board.padAt(row, col);
+        if (pad < 0) {
+            return WATER;
+        }
+        if (pad == red) {
+            return RED;
+        }
+        return (greens & (1L << pad)) != 0 ? GREEN : EMPTY;
+    }
+
+    /**
+     * number of rows
+     * @return number of rows
+     */
+    public int getRows() {
+        return board.rows;
+    }
+
+    /**
+     * number of columns
+     * @return number of columns
+     */
+    public int getCols() {
+        return board.cols;
+    }
+
+    /**
+     * The green frogs' mask takes one bit per pad and the red frog's pad
+     * goes above it, in a second word if it doesn't fit.
+     * @return number of longs in the encoding
+     */
+    @Override
+    public int encodedLength() {
+        return board.pads + board.redBits <= Long.SIZE ? 1 : 2;
+    }
+
+    @Override
+    public void encode(long[] dest, int offset) {
+        if (encodedLength() == 1) {
+            dest[offset] = greens | ((long) red << board.pads);
+        }
+        else {
+            dest[offset] = greens;
+            dest[offset + 1] = red;
+        }
+    }
+
+    @Override
+    public HoppersConfig decode(long[] src, int offset) {
+        if (encodedLength() == 1) {
+            long greenMask = board.pads == Long.SIZE ? -1L : (1L << board.pads) - 1;
+            return new HoppersConfig(board, src[offset] & greenMask, (int) (src[offset] >>> board.pads));
+        }
+        return new HoppersConfig(board, src[offset], (int) src[offset + 1]);
+    }
+
+    /**
+     * Equals method
+     * @param o object
+     * @return true if the same frogs sit on the same pads
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        HoppersConfig that = (HoppersConfig) o;
+        return greens == that.greens && red == that.red;
+    }
+
+    /**
+     * Hash code method
+     * @return the hash code
+     */
+    @Override
+    public int hashCode() {
+        return Long.hashCode(greens * 31 + red);
+    }
+
+    /**
+     * toString method
+     * @return the grid, one row per line
+     */
+    @Override
+    public String toString() {
+        StringBuilder string = new StringBuilder();
+        for (int row = 0; row < board.rows; row++) {
+            for (int col = 0; col < board.cols; col++) {
+                string.append(get(row, col));
+                string.append(" ");
+            }
+            string.append("\n");
+        }
+        return string.toString();
+    }
+
+    /**
+     * The parts of a Hoppers puzzle that every configuration shares.
+     */
+    private static final class Board {
+        /** number of rows */
+        final int rows;
+        /** number of columns */
+        final int cols;
+        /** number of lily pads */
+        final int pads;
+        /** the pad number of each cell, row by row, or -1 for water */
+        final int[] padIndex;
+        /** the row of each pad */
+        final int[] padRows;
+        /** the column of each pad */
+        final int[] padCols;
+        /** jumps[pad] holds the pad jumped over and the pad landed on, pair after pair */
+        final int[][] jumps;
+        /** bits needed for the red frog's pad */
+        final int redBits;
+
+        /**
+         * Number the pads and work out every jump.
+         * @param cells the grid as read from the file
+         */
+        Board(char[][] cells) {
+            this.rows = cells.length;
+            this.cols = cells[0].length;
+            this.padIndex = new int[rows * cols];
+            int pads = 0;
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < cols; col++) {
+                    padIndex[row * cols + col] = cells[row][col] == WATER ? -1 : pads++;
+                }
+            }
+            if (pads > Long.SIZE) {
+                throw new IllegalArgumentException("board with more than " + Long.SIZE + " lily pads");
+            }
+            this.pads = pads;
+            this.padRows = new int[pads];
+            this.padCols = new int[pads];
+            this.jumps = new int[pads][];
+            this.redBits = EncodableConfiguration.bitsFor(Math.max(0, pads - 1));
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < cols; col++) {
+                    int pad = padAt(row, col);
+                    if (pad >= 0) {
+                        padRows[pad] = row;
+                        padCols[pad] = col;
+                        jumps[pad] = jumpsFrom(row, col);
+                    }
+                }
+            }
+        }
+
+        /**
+         * The jumps from one pad. A frog can always jump diagonally, over
+         * the next pad onto the one after it. From a cell whose row and
+         * column are both even it can also jump along its row or column,
+         * over the pad two cells away onto the pad four cells away.
+         * @param row the row of the pad
+         * @param col the column of the pad
+         * @return the pad jumped over and the pad landed on, pair after pair
+         */
+        private int[] jumpsFrom(int row, int col) {
+            List<Integer> pairs = new ArrayList<>();
+            for (int dr = -1; dr <= 1; dr++) {
+                for (int dc = -1; dc <= 1; dc++) {
+                    if (dr == 0 && dc == 0) {
+                        continue;
+                    }
+                    boolean diagonal = dr != 0 && dc != 0;
+                    if (!diagonal && (row % 2 != 0 || col % 2 != 0)) {
+                        continue;
+                    }
+                    int step = diagonal ? 1 : 2;
+                    int over = padAt(row + dr * step, col + dc * step);
+                    int to = padAt(row + 2 * dr * step, col + 2 * dc * step);
+                    if (over >= 0 && to >= 0) {
+                        pairs.add(over);
+                        pairs.add(to);
+                    }
+                }
+            }
+            return pairs.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        /**
+         * The pad at a cell.
+         * @param row the row, possibly off the board
+         * @param col the column, possibly off the board
+         * @return the pad number, or -1 for water or a cell off the board
+         */
+        int padAt(int row, int col) {
+            if (row < 0 || row >= rows || col < 0 || col >= cols) {
+                return -1;
+            }
+            return padIndex[row * cols + col];
+        }
+    }
 }
@@ -1,20 +1,216 @@
 package puzzles.hoppers.model;
 
 import puzzles.common.Observer;
+import puzzles.common.solver.CancellationToken;
+import puzzles.common.solver.SearchBudget;
+import puzzles.common.solver.SearchResult;
 import puzzles.common.solver.Solver;
 
+import java.io.FileNotFoundException;
+import java.time.Duration;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class HoppersModel {
+    /** limits on a hint search, so a huge board can't run forever */
+    private static final SearchBudget HINT_BUDGET = SearchBudget.UNLIMITED.withMaxTime(Duration.ofSeconds(30));
+    /** message for a command that needs a puzzle before one is loaded */
+    private static final String NO_PUZZLE = "No puzzle loaded";
+
     /** the collection of observers of this model */
     private final List<Observer<HoppersModel, HoppersClientData>> observers = new LinkedList<>();
+    /** runs hint searches off the thread that asked for them */
+    private final ExecutorService hintExecutor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "hoppers-hint");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** stops the hint search in progress, null if there is none */
+    private CancellationToken pendingHint;
 
     /** the current configuration */
     private HoppersConfig currentConfig;
+    /** file name */
+    private String filename;
+    /** whether a frog is selected */
+    private boolean selectValid;
+    /** selected row */
+    private int sRow;
+    /** selected column */
+    private int sCol;
+
+    /**
+     * the current configuration
+     * @return the current configuration, or null if no puzzle is loaded
+     */
+    public synchronized HoppersConfig getCurrentConfig() {
+        return currentConfig;
+    }
+
+    /**
+     * Load a puzzle file. If it can't be loaded, the current puzzle, if
+     * any, is kept.
+     * @param filename the file name
+     */
+    public synchronized void load(String filename) {
+        String message;
+        if (read(filename)) {
+            String[] name = filename.split("/");
+            message = "Loaded: " + name[name.length - 1];
+        }
+        else {
+            message = "Failed to load: " + filename;
+        }
+        alertObservers(new HoppersClientData(message));
+    }
+
+    /**
+     * Replace the current puzzle with one read from a file, without
+     * telling the observers. If it can't be read, nothing changes.
+     * @param filename the file name
+     * @return true if the puzzle was read
+     */
+    private boolean read(String filename) {
+        HoppersConfig config;
+        try {
+            config = new HoppersConfig(filename);
+        } catch (FileNotFoundException | IllegalArgumentException e) {
+            return false;
+        }
+        cancelHint();
+        this.currentConfig = config;
+        this.filename = filename;
+        this.selectValid = false;
+        return true;
+    }
+
+    /**
+     * Make the first move of a shortest solution from the current
+     * configuration. The search runs in the background within
+     * {@link #HINT_BUDGET}, and the observers hear about the move when
+     * it is done.
+     */
+    public synchronized void hint() {
+        String message;
+        if (currentConfig == null) {
+            message = NO_PUZZLE;
+        }
+        else if (currentConfig.isGoal()) {
+            message = "Already solved!";
+        }
+        else if (pendingHint != null) {
+            message = "Still searching for a hint";
+        }
+        else {
+            CancellationToken token = new CancellationToken();
+            HoppersConfig start = currentConfig;
+            pendingHint = token;
+            hintExecutor.execute(() -> {
+                SearchResult result = new Solver(start).BFS(HINT_BUDGET, token);
+                finishHint(token, result);
+            });
+            message = "Searching for a hint...";
+        }
+        alertObservers(new HoppersClientData(message));
+    }
+
+    /**
+     * Called on the hint thread when a search ends. The result is only
+     * used if the search was not cancelled, which happens whenever the
+     * board changes.
+     * @param token the token of the finished search
+     * @param result how the search ended
+     */
+    private synchronized void finishHint(CancellationToken token, SearchResult result) {
+        if (token != pendingHint) {
+            return;
+        }
+        pendingHint = null;
+        String message;
+        switch (result.status()) {
+            case SOLVED -> {
+                currentConfig = (HoppersConfig) result.path().get(1);
+                selectValid = false;
+                message = "Next step!";
+            }
+            case NO_SOLUTION -> message = "No solution!";
+            case BUDGET_EXHAUSTED -> message = "Gave up looking for a hint, the puzzle is too large";
+            default -> message = "Hint cancelled";
+        }
+        alertObservers(new HoppersClientData(message));
+    }
+
+    /**
+     * Stop the hint search in progress, if any. Its result is dropped.
+     */
+    private void cancelHint() {
+        if (pendingHint != null) {
+            pendingHint.cancel();
+            pendingHint = null;
+        }
+    }
+
+    /**
+     * Select a frog to move, or the pad to jump the selected frog to.
+     * @param row the row
+     * @param col the column
+     */
+    public synchronized void select(int row, int col) {
+        String message;
+        if (currentConfig == null) {
+            message = NO_PUZZLE;
+        }
+        else if (!selectValid) {
+            char cell = currentConfig.get(row, col);
+            if (cell == HoppersConfig.GREEN || cell == HoppersConfig.RED) {
+                sRow = row;
+                sCol = col;
+                selectValid = true;
+                message = "Selected (" + row + ", " + col + ")";
+            }
+            else {
+                message = "No frog at (" + row + ", " + col + ")";
+            }
+        }
+        else {
+            selectValid = false;
+            HoppersConfig next = currentConfig.jump(sRow, sCol, row, col);
+            if (next == null) {
+                message = "Can't jump from (" + sRow + ", " + sCol + ") to (" + row + ", " + col + ")";
+            }
+            else {
+                cancelHint();
+                currentConfig = next;
+                message = "Jumped from (" + sRow + ", " + sCol + ") to (" + row + ", " + col + ")";
+            }
+        }
+        alertObservers(new HoppersClientData(message));
+    }
 
     /**
-     * The view calls this to add itself as an observer.
+     * Reload the current puzzle from its file. If the file can't be read
+     * any more, the current board is kept.
+     */
+    public synchronized void reset() {
+        String message;
+        if (filename == null) {
+            message = NO_PUZZLE;
+        }
+        else if (read(filename)) {
+            message = "Puzzle reset!";
+        }
+        else {
+            message = "Failed to reset: " + filename;
+        }
+        alertObservers(new HoppersClientData(message));
+    }
+
+    /**
+     * The view calls this to add itself as an observer. Observers are
+     * called on the thread that changed the model, which is the
+     * background hint thread when a hint search finishes.
      *
      * @param observer the view
      */
@@ -31,4 +227,31 @@ public class HoppersModel {
             observer.update(this, data);
         }
     }
+
+    /**
+     * toString method
+     * @return the board with row and column numbers
+     */
+    @Override
+    public synchronized String toString() {
+        if (currentConfig == null) {
+            return NO_PUZZLE;
+        }
+        StringBuilder string = new StringBuilder();
+        string.append("  ");
+        for (int i = 0; i < currentConfig.getCols(); i++) {
+            string.append(" ").append(i);
+        }
+        string.append("\n  ");
+        string.append("--".repeat(currentConfig.getCols()));
+        string.append("\n");
+        for (int row = 0; row < currentConfig.getRows(); row++) {
+            string.append(row).append("|");
+            for (int col = 0; col < currentConfig.getCols(); col++) {
+                string.append(" ").append(currentConfig.get(row, col));
+            }
+            string.append("\n");
+        }
+        return string.toString();
+    }
 }
@@ -4,16 +4,116 @@ import puzzles.common.Observer;
 import puzzles.hoppers.model.HoppersClientData;
 import puzzles.hoppers.model.HoppersModel;
 
+import java.util.Scanner;
+
 public class HoppersPTUI implements Observer<HoppersModel, HoppersClientData> {
+    /** the prompt for the next command */
+    private static final String PROMPT = "Hoppers game command: ";
+
+    /** HoppersModel */
     private HoppersModel model;
+    /** the thread reading commands, null until the command loop starts */
+    private volatile Thread inputThread;
+
+    /**
+     * Construct the HoppersPTUI
+     */
+    public HoppersPTUI() {
+        this.model = new HoppersModel();
+        model.addObserver(this);
+    }
+
+    /**
+     * help messages used in game
+     */
+    private void displayHelp() {
+        System.out.println("h(int)              -- hint next move");
+        System.out.println("l(oad) filename     -- load new puzzle file");
+        System.out.println("s(elect) r c        -- select cell at r, c");
+        System.out.println("q(uit)              -- quit the game");
+        System.out.println("r(eset)             -- reset the current game");
+    }
 
+    /**
+     * Read a command and execute loop.
+     */
+    private void run() {
+        Scanner in = new Scanner(System.in);
+        displayHelp();
+        System.out.println();
+        inputThread = Thread.currentThread();
+        for ( ; ; ) {
+            synchronized (System.out) {
+                System.out.print(PROMPT);
+            }
+            if (!in.hasNextLine()) {
+                return;
+            }
+            String[] words = in.nextLine().split(" ");
+            if (words.length > 0) {
+                if (words[0].startsWith("h") || words[0].startsWith("H")) {
+                    this.model.hint();
+                }
+                else if ((words[0].startsWith("l") || words[0].startsWith("L")) && words.length > 1) {
+                    this.model.load(words[1]);
+                }
+                else if ((words[0].startsWith("s") || words[0].startsWith("S")) && words.length > 2) {
+                    int i = Integer.parseInt(words[1]);
+                    int j = Integer.parseInt(words[2]);
+                    this.model.select(i, j);
+                }
+                else if (words[0].startsWith("q") || words[0].startsWith("Q")) {
+                    return;
+                }
+                else if (words[0].startsWith("r") || words[0].startsWith("R")) {
+                    this.model.reset();
+                }
+                else {
+                    displayHelp();
+                }
+            }
+        }
+    }
+
+    /**
+     * update method. A finished hint search calls this from the model's
+     * hint thread while the command loop is waiting at the prompt, so the
+     * update is printed on lines of its own and the prompt is shown again.
+     *
+     * @param model the model
+     * @param data the message
+     */
     @Override
     public void update(HoppersModel model, HoppersClientData data) {
+        boolean background = inputThread != null && Thread.currentThread() != inputThread;
+        synchronized (System.out) {
+            if (background) {
+                System.out.println();
+            }
+            System.out.println(data);
+            System.out.println(model);
+            if (background) {
+                System.out.print(PROMPT);
+            }
+        }
     }
 
+    /**
+     * Main method use to play the game
+     *
+     * @param args command line arguments
+     */
     public static void main(String[] args) {
         if (args.length != 1) {
             System.out.println("Usage: java HoppersPTUI filename");
         }
+        else {
+            HoppersPTUI ptui = new HoppersPTUI();
+            ptui.model.load(args[0]);
+            if (ptui.model.getCurrentConfig() == null) {
+                System.exit(-1);
+            }
+            ptui.run();
+        }
     }
 }
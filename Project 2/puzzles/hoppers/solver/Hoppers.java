@@ -1,11 +1,49 @@
 package puzzles.hoppers.solver;
 
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.ProgressReporter;
 import puzzles.common.solver.Solver;
+import puzzles.hoppers.model.HoppersConfig;
 
+import java.io.FileNotFoundException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * the main function to run Hoppers
+ */
 public class Hoppers {
-    public static void main(String[] args) {
+    /**
+     * main function
+     * @param args the file name
+     * @throws FileNotFoundException if the file can't be read
+     */
+    public static void main(String[] args) throws FileNotFoundException {
         if (args.length != 1) {
             System.out.println("Usage: java Hoppers filename");
         }
+        else {
+            HoppersConfig hoppersConfig = new HoppersConfig(args[0]);
+            Solver solver = new Solver(hoppersConfig);
+            solver.setListener(new ProgressReporter());
+            Optional<List<Configuration>> path = solver.BFS();
+
+            System.out.println("File: " + args[0]);
+            System.out.print(hoppersConfig);
+            System.out.println("Total configs: " + solver.getTotalCount());
+            System.out.println("Unique configs: " + solver.getUniqueCount());
+
+            if (path.isEmpty()) {
+                System.out.println("No solution");
+            }
+            else {
+                int step = 0;
+                for (Configuration configuration: path.get()) {
+                    System.out.println("Step " + step + ":");
+                    System.out.print(configuration);
+                    ++step;
+                }
+            }
+        }
     }
 }
@@ -1,6 +1,7 @@
 package puzzles.jam.gui;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -13,7 +14,6 @@ import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import puzzles.common.Observer;
 import puzzles.jam.model.JamClientData;
-import puzzles.jam.model.JamConfig;
 import puzzles.jam.model.JamModel;
 import java.io.File;
 import java.nio.file.Paths;
@@ -90,8 +90,8 @@ public class JamGUI extends Application  implements Observer<JamModel, JamClient
     private GridPane makeGridPane(){
         GridPane gridPane = new GridPane();
 
-        for (int row = 0; row < JamConfig.numRows; ++row) {
-            for (int col=0; col < JamConfig.numCols; ++col) {
+        for (int row = 0; row < model.currentConfig.getNumRows(); ++row) {
+            for (int col=0; col < model.currentConfig.getNumCols(); ++col) {
                 Button button = new Button(model.currentConfig.field[row][col]);
                 button.setMinSize(ICON_SIZE, ICON_SIZE);
                 button.setMaxSize(ICON_SIZE, ICON_SIZE);
@@ -114,10 +114,13 @@ public class JamGUI extends Application  implements Observer<JamModel, JamClient
      */
     @Override
     public void update(JamModel jamModel, JamClientData jamClientData) {
-        borderPane.setCenter(makeGridPane());
-        label.setText(String.valueOf(jamClientData));
-        borderPane.setTop(label);
-        stage.sizeToScene();
+        // hints are published from the model's background thread
+        Platform.runLater(() -> {
+            borderPane.setCenter(makeGridPane());
+            label.setText(String.valueOf(jamClientData));
+            borderPane.setTop(label);
+            stage.sizeToScene();
+        });
     }
 
     /** main function */
@@ -0,0 +1,44 @@
+package puzzles.jam.model;
+
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.Heuristic;
+
+/**
+ * Admissible Jam estimate: every car between the X car and the exit has to
+ * move at least once, and so does the X car unless it is already out.
+ * Works on both {@link JamConfig} and {@link JamBitboard}.
+ */
+public class BlockingCarsHeuristic implements Heuristic<Configuration> {
+    /**
+     * Count the moves that are certainly still needed.
+     * @param config a JamConfig or JamBitboard
+     * @return blocking cars, plus one if the X car is not at the exit
+     */
+    @Override
+    public int estimate(Configuration config) {
+        if (config instanceof JamBitboard board) {
+            return board.blockingCars();
+        }
+        if (!(config instanceof JamConfig jam)) {
+            throw new IllegalArgumentException("not a Jam configuration: " + config.getClass().getName());
+        }
+        for (JamConfig.Car car: jam.cars) {
+            if (car.letter.equals("X")) {
+                if (car.endCol == jam.getNumCols() - 1) {
+                    return 0;
+                }
+                int blocking = 1;
+                String previous = ".";
+                for (int col = car.endCol + 1; col < jam.getNumCols(); col++) {
+                    String cell = jam.field[car.endRow][col];
+                    if (!cell.equals(".") && !cell.equals(previous)) {
+                        ++blocking;
+                    }
+                    previous = cell;
+                }
+                return blocking;
+            }
+        }
+        return 0;
+    }
+}
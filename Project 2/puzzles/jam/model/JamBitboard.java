@@ -0,0 +1,362 @@
+package puzzles.jam.model;
+
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.EncodableConfiguration;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Scanner;
+
+/**
+ * A compact Jam configuration. Each car is reduced to its offset along the
+ * axis it moves on, and the occupied cells are kept as a bitmask with bit
+ * {@code row * cols + col} per cell, so a move is a bit test and two XORs.
+ * Everything that never changes (board size, letters, orientations, car
+ * lengths and the precomputed car masks) lives in one {@link Layout}
+ * shared by all configurations of a puzzle. Boards of at most 64 cells
+ * are supported.
+ */
+public class JamBitboard implements EncodableConfiguration {
+    /** the shared description of the puzzle */
+    private final Layout layout;
+    /** offset of each car along its axis */
+    private final byte[] offsets;
+    /** bitmask of occupied cells */
+    private final long occupied;
+
+    /**
+     * Construct the initial configuration from an input file in the same
+     * format {@link JamConfig} reads.
+     * @param filename the file name to read
+     * @throws FileNotFoundException if file is not found
+     */
+    public JamBitboard(String filename) throws FileNotFoundException {
+        this(filename, false);
+    }
+
+    /**
+     * Construct the initial configuration from an input file in the same
+     * format {@link JamConfig} reads.
+     * @param filename the file name to read
+     * @param slide true to let a car slide several cells in one move
+     * @throws FileNotFoundException if file is not found
+     */
+    public JamBitboard(String filename, boolean slide) throws FileNotFoundException {
+        Scanner in = new Scanner(new File(filename));
+        int rows = in.nextInt();
+        int cols = in.nextInt();
+        in.nextInt();
+        in.nextLine();
+        List<JamConfig.Car> cars = new ArrayList<>();
+        while (in.hasNext()) {
+            String[] s = in.nextLine().split("\\s+");
+            cars.add(new JamConfig.Car(s[0], Integer.parseInt(s[1]), Integer.parseInt(s[2]),
+                    Integer.parseInt(s[3]), Integer.parseInt(s[4])));
+        }
+        this.layout = new Layout(rows, cols, cars, slide);
+        this.offsets = layout.offsetsOf(cars);
+        this.occupied = layout.occupancyOf(offsets);
+    }
+
+    /**
+     * Convert a JamConfig to the compact form, keeping its move mode.
+     * @param config the configuration to convert
+     */
+    public JamBitboard(JamConfig config) {
+        this.layout = new Layout(config.getNumRows(), config.getNumCols(), config.cars, config.isSlide());
+        this.offsets = layout.offsetsOf(config.cars);
+        this.occupied = layout.occupancyOf(offsets);
+    }
+
+    /**
+     * Create a configuration of an existing puzzle.
+     * @param layout the shared description of the puzzle
+     * @param offsets offset of each car, owned by the new configuration
+     * @param occupied bitmask of occupied cells
+     */
+    private JamBitboard(Layout layout, byte[] offsets, long occupied) {
+        this.layout = layout;
+        this.offsets = offsets;
+        this.occupied = occupied;
+    }
+
+    /**
+     * Get the collection of successors: every car moved along its axis
+     * into free cells, one cell at a time or, in slide mode, as far as
+     * each free cell.
+     * @return All successors
+     */
+    @Override
+    public Collection<Configuration> getSuccessors() {
+        List<Configuration> successors = new ArrayList<>(offsets.length * 2);
+        for (int car = 0; car < offsets.length; car++) {
+            int offset = offsets[car];
+            int length = layout.lengths[car];
+            long[] cells = layout.cellMasks[car];
+            for (int back = offset - 1; back >= 0 && (occupied & cells[back]) == 0; back--) {
+                successors.add(moved(car, back));
+                if (!layout.slide) {
+                    break;
+                }
+            }
+            for (int ahead = offset + length; ahead < cells.length && (occupied & cells[ahead]) == 0; ahead++) {
+                successors.add(moved(car, ahead - length + 1));
+                if (!layout.slide) {
+                    break;
+                }
+            }
+        }
+        return successors;
+    }
+
+    /**
+     * The configuration with one car at a new offset.
+     * @param car the index of the car
+     * @param offset its new offset
+     * @return the new configuration
+     */
+    private JamBitboard moved(int car, int offset) {
+        byte[] newOffsets = offsets.clone();
+        newOffsets[car] = (byte) offset;
+        long[] masks = layout.carMasks[car];
+        return new JamBitboard(layout, newOffsets, occupied ^ masks[offsets[car]] ^ masks[offset]);
+    }
+
+    /**
+     * Is current configuration a goal?
+     * @return true if the X car touches the right edge
+     */
+    @Override
+    public boolean isGoal() {
+        int x = layout.xCar;
+        return x >= 0 && offsets[x] + layout.lengths[x] == layout.cols;
+    }
+
+    /**
+     * Count the moves that are certainly still needed: one for the X car
+     * and one for each car covering a cell between it and the exit.
+     * @return 0 for a goal or a puzzle without an X car, otherwise one
+     *         plus the number of blocking cars
+     * @see BlockingCarsHeuristic
+     */
+    int blockingCars() {
+        int x = layout.xCar;
+        if (x < 0 || isGoal()) {
+            return 0;
+        }
+        long[] cells = layout.cellMasks[x];
+        long ahead = 0;
+        for (int i = offsets[x] + layout.lengths[x]; i < cells.length; i++) {
+            ahead |= cells[i];
+        }
+        int blocking = 1;
+        if ((occupied & ahead) != 0) {
+            for (int car = 0; car < offsets.length; car++) {
+                if ((layout.carMasks[car][offsets[car]] & ahead) != 0) {
+                    ++blocking;
+                }
+            }
+        }
+        return blocking;
+    }
+
+    /**
+     * Convert back to the list-of-cars form used by the game model.
+     * @return an equal JamConfig
+     */
+    public JamConfig toJamConfig() {
+        return new JamConfig(layout.spec, layout.carsAt(offsets));
+    }
+
+    @Override
+    public int encodedLength() {
+        return (offsets.length + layout.offsetsPerWord - 1) / layout.offsetsPerWord;
+    }
+
+    @Override
+    public void encode(long[] dest, int offset) {
+        int perWord = layout.offsetsPerWord;
+        Arrays.fill(dest, offset, offset + encodedLength(), 0L);
+        for (int car = 0; car < offsets.length; car++) {
+            dest[offset + car / perWord] |= (long) offsets[car] << (car % perWord * layout.offsetBits);
+        }
+    }
+
+    @Override
+    public JamBitboard decode(long[] src, int offset) {
+        int perWord = layout.offsetsPerWord;
+        long mask = (1L << layout.offsetBits) - 1;
+        byte[] newOffsets = new byte[offsets.length];
+        for (int car = 0; car < newOffsets.length; car++) {
+            newOffsets[car] = (byte) ((src[offset + car / perWord] >>> (car % perWord * layout.offsetBits)) & mask);
+        }
+        return new JamBitboard(layout, newOffsets, layout.occupancyOf(newOffsets));
+    }
+
+    /**
+     * to string method, in the same format as {@link JamConfig#toString()}
+     * @return the output
+     */
+    @Override
+    public String toString() {
+        String[] cells = new String[layout.rows * layout.cols];
+        Arrays.fill(cells, ".");
+        for (int car = 0; car < offsets.length; car++) {
+            long mask = layout.carMasks[car][offsets[car]];
+            for (long bits = mask; bits != 0; bits &= bits - 1) {
+                cells[Long.numberOfTrailingZeros(bits)] = layout.letters[car];
+            }
+        }
+        StringBuilder string = new StringBuilder();
+        for (int row = 0; row < layout.rows; row++) {
+            for (int col = 0; col < layout.cols; col++) {
+                string.append(cells[row * layout.cols + col]);
+                string.append(" ");
+            }
+            string.append("\n");
+        }
+        return string.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        JamBitboard that = (JamBitboard) o;
+        return occupied == that.occupied && Arrays.equals(offsets, that.offsets);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(offsets);
+    }
+
+    /**
+     * The parts of a Jam puzzle that every configuration shares.
+     */
+    private static final class Layout {
+        /** number of rows */
+        final int rows;
+        /** number of columns */
+        final int cols;
+        /** letter of each car */
+        final String[] letters;
+        /** whether each car moves along its row */
+        final boolean[] horizontal;
+        /** the row (horizontal cars) or column (vertical cars) each car stays on */
+        final int[] lines;
+        /** number of cells each car covers */
+        final int[] lengths;
+        /** index of the X car, or -1 */
+        final int xCar;
+        /** carMasks[car][offset] is the set of cells the car covers at that offset */
+        final long[][] carMasks;
+        /** cellMasks[car][i] is the single cell at position i along the car's line */
+        final long[][] cellMasks;
+        /** bits per offset in the encoding */
+        final int offsetBits;
+        /** offsets packed into one long */
+        final int offsetsPerWord;
+        /** whether a car may slide several cells in one move */
+        final boolean slide;
+        /** the same puzzle as seen by {@link JamConfig} */
+        final JamSpec spec;
+
+        /**
+         * Describe a puzzle.
+         * @param rows number of rows
+         * @param cols number of columns
+         * @param cars the cars, in the order their offsets are stored
+         * @param slide true to let a car slide several cells in one move
+         */
+        Layout(int rows, int cols, List<JamConfig.Car> cars, boolean slide) {
+            if (rows * cols > Long.SIZE) {
+                throw new IllegalArgumentException("board larger than " + Long.SIZE + " cells");
+            }
+            this.rows = rows;
+            this.cols = cols;
+            this.slide = slide;
+            this.spec = new JamSpec(rows, cols, cars.size(), slide);
+            int n = cars.size();
+            this.letters = new String[n];
+            this.horizontal = new boolean[n];
+            this.lines = new int[n];
+            this.lengths = new int[n];
+            this.carMasks = new long[n][];
+            this.cellMasks = new long[n][];
+            int x = -1;
+            for (int car = 0; car < n; car++) {
+                JamConfig.Car c = cars.get(car);
+                letters[car] = c.letter;
+                horizontal[car] = c.startRow == c.endRow;
+                lines[car] = horizontal[car] ? c.startRow : c.startCol;
+                lengths[car] = horizontal[car] ? c.endCol - c.startCol + 1 : c.endRow - c.startRow + 1;
+                int span = horizontal[car] ? cols : rows;
+                cellMasks[car] = new long[span];
+                for (int i = 0; i < span; i++) {
+                    cellMasks[car][i] = 1L << (horizontal[car] ? lines[car] * cols + i : i * cols + lines[car]);
+                }
+                carMasks[car] = new long[span - lengths[car] + 1];
+                for (int offset = 0; offset < carMasks[car].length; offset++) {
+                    for (int i = offset; i < offset + lengths[car]; i++) {
+                        carMasks[car][offset] |= cellMasks[car][i];
+                    }
+                }
+                if (c.letter.equals("X")) {
+                    x = car;
+                }
+            }
+            this.xCar = x;
+            this.offsetBits = EncodableConfiguration.bitsFor(Math.max(rows, cols) - 1);
+            this.offsetsPerWord = Long.SIZE / offsetBits;
+        }
+
+        /**
+         * offset of each car along its axis
+         */
+        byte[] offsetsOf(List<JamConfig.Car> cars) {
+            byte[] offsets = new byte[cars.size()];
+            for (int car = 0; car < offsets.length; car++) {
+                JamConfig.Car c = cars.get(car);
+                offsets[car] = (byte) (horizontal[car] ? c.startCol : c.startRow);
+            }
+            return offsets;
+        }
+
+        /**
+         * bitmask of the cells covered by cars at the given offsets
+         */
+        long occupancyOf(byte[] offsets) {
+            long occupied = 0;
+            for (int car = 0; car < offsets.length; car++) {
+                occupied |= carMasks[car][offsets[car]];
+            }
+            return occupied;
+        }
+
+        /**
+         * the cars placed at the given offsets
+         */
+        LinkedList<JamConfig.Car> carsAt(byte[] offsets) {
+            LinkedList<JamConfig.Car> cars = new LinkedList<>();
+            for (int car = 0; car < offsets.length; car++) {
+                int start = offsets[car];
+                int end = start + lengths[car] - 1;
+                if (horizontal[car]) {
+                    cars.add(new JamConfig.Car(letters[car], lines[car], start, lines[car], end));
+                }
+                else {
+                    cars.add(new JamConfig.Car(letters[car], start, lines[car], end, lines[car]));
+                }
+            }
+            return cars;
+        }
+    }
+}
@@ -1,27 +1,28 @@
 package puzzles.jam.model;
 
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.EncodableConfiguration;
+import puzzles.common.solver.Zobrist;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.*;
+import java.util.function.Predicate;
 
 /**
  * JamConfig Class
  * @author Chen Lin
  */
 
-public class JamConfig implements Configuration {
+public class JamConfig implements EncodableConfiguration {
     /** fields */
     public String[][] field;
-    /** number of rows */
-    public static int numRows;
-    /** number of columns */
-    public static int numCols;
-    /** number of cars */
-    public static int numCars;
     /** a list of cars */
     public LinkedList<Car> cars;
+    /** the board size and move mode, shared by every configuration of the puzzle */
+    private final JamSpec spec;
+    /** Zobrist hash of the car positions, updated move by move */
+    private final long zobrist;
 
     /**
      * Construct the initial configuration from an input file
@@ -29,10 +30,20 @@ public class JamConfig implements Configuration {
      * @throws FileNotFoundException if file is not found, throw this error.
      */
     public JamConfig(String filename) throws FileNotFoundException {
+        this(filename, false);
+    }
+
+    /**
+     * Construct the initial configuration from an input file
+     * @param filename the file name to read
+     * @param slide true to let a car slide several cells in one move
+     * @throws FileNotFoundException if file is not found, throw this error.
+     */
+    public JamConfig(String filename, boolean slide) throws FileNotFoundException {
         Scanner in = new Scanner(new File(filename));
-        JamConfig.numRows = in.nextInt();
-        JamConfig.numCols = in.nextInt();
-        JamConfig.numCars = in.nextInt();
+        int numRows = in.nextInt();
+        int numCols = in.nextInt();
+        this.spec = new JamSpec(numRows, numCols, in.nextInt(), slide);
         this.field = new String[numRows][numCols];
         cars = new LinkedList<>();
         in.nextLine();
@@ -59,14 +70,28 @@ public class JamConfig implements Configuration {
                 }
             }
         }
+        this.zobrist = zobristOf(cars);
     }
 
     /**
      * JamConfig copy constructor
+     * @param spec the puzzle the configuration belongs to
      * @param newCars a list of cars
      */
-    public JamConfig(LinkedList<Car> newCars) {
-        field = new String[numRows][numCols];
+    public JamConfig(JamSpec spec, LinkedList<Car> newCars) {
+        this(spec, newCars, zobristOf(newCars));
+    }
+
+    /**
+     * JamConfig copy constructor with a known hash
+     * @param spec the puzzle the configuration belongs to
+     * @param newCars a list of cars
+     * @param zobrist the Zobrist hash of the cars
+     */
+    private JamConfig(JamSpec spec, LinkedList<Car> newCars, long zobrist) {
+        this.spec = spec;
+        this.zobrist = zobrist;
+        field = new String[spec.getNumRows()][spec.getNumCols()];
         cars = new LinkedList<>(newCars);
 
         for (String[] s: field) {
@@ -83,57 +108,134 @@ public class JamConfig implements Configuration {
     }
 
     /**
-     * Get the collection of successors from the current one
+     * Get the collection of successors from the current one. In slide
+     * mode a car may move any number of free cells in one successor;
+     * otherwise it moves a single cell.
      * @return All successors, valid and invalid
      */
     @Override
     public Collection<Configuration> getSuccessors() {
-        HashSet<Configuration> successors = new HashSet<>();
+        List<Configuration> successors = new ArrayList<>();
+        visitSuccessors(successors::add);
+        return successors;
+    }
 
-        for (Car car: cars){
-            int step = 1;
-            int index = cars.indexOf(car);
+    /**
+     * Hand the successors to a visitor one at a time, in the order
+     * {@link #getSuccessors()} lists them. Every move leads to a different
+     * configuration, so no set is needed to drop duplicates.
+     * @param visitor called on each successor; returns false to stop
+     * @return true if every successor was visited, false if the visitor stopped
+     */
+    @Override
+    public boolean visitSuccessors(Predicate<? super Configuration> visitor) {
+        int numRows = spec.getNumRows();
+        int numCols = spec.getNumCols();
+        boolean slide = spec.isSlide();
 
+        int index = 0;
+        for (Car car: cars){
             if (car.startRow == car.endRow) {
-                if (car.endCol + 1 < numCols) {
-                    if (field[car.endRow][car.endCol + step].equals(".")) {
-                        Car newCar = new Car(car.letter, car.startRow, car.startCol, car.endRow, car.endCol);
-                        newCar.startCol += step;
-                        newCar.endCol += step;
-                        successors.add(new JamConfig(updateCar(cars, newCar, index)));
+                for (int step = 1; car.endCol + step < numCols
+                        && field[car.endRow][car.endCol + step].equals("."); step++) {
+                    Car newCar = new Car(car.letter, car.startRow, car.startCol, car.endRow, car.endCol);
+                    newCar.startCol += step;
+                    newCar.endCol += step;
+                    if (!visitor.test(moved(car, newCar, index))) {
+                        return false;
+                    }
+                    if (!slide) {
+                        break;
                     }
                 }
 
-                if (car.startCol - 1 >= 0) {
-                    if (field[car.startRow][car.startCol - step].equals(".")) {
-                        Car newCar = new Car(car.letter, car.startRow, car.startCol, car.endRow, car.endCol);
-                        newCar.startCol -= step;
-                        newCar.endCol -= step;
-                        successors.add(new JamConfig(updateCar(cars, newCar, index)));
+                for (int step = 1; car.startCol - step >= 0
+                        && field[car.startRow][car.startCol - step].equals("."); step++) {
+                    Car newCar = new Car(car.letter, car.startRow, car.startCol, car.endRow, car.endCol);
+                    newCar.startCol -= step;
+                    newCar.endCol -= step;
+                    if (!visitor.test(moved(car, newCar, index))) {
+                        return false;
+                    }
+                    if (!slide) {
+                        break;
                     }
                 }
             }
 
             if (car.startCol == car.endCol) {
-                if (car.startRow - 1 >= 0) {
-                    if (field[car.startRow - step][car.startCol].equals(".")) {
-                        Car newCar = new Car(car.letter, car.startRow, car.startCol, car.endRow, car.endCol);
-                        newCar.startRow -= step;
-                        newCar.endRow -= step;
-                        successors.add(new JamConfig(updateCar(cars, newCar, index)));
+                for (int step = 1; car.startRow - step >= 0
+                        && field[car.startRow - step][car.startCol].equals("."); step++) {
+                    Car newCar = new Car(car.letter, car.startRow, car.startCol, car.endRow, car.endCol);
+                    newCar.startRow -= step;
+                    newCar.endRow -= step;
+                    if (!visitor.test(moved(car, newCar, index))) {
+                        return false;
+                    }
+                    if (!slide) {
+                        break;
                     }
                 }
-                if (car.endRow + 1 < numRows) {
-                    if (field[car.endRow + step][car.endCol].equals(".")) {
-                        Car newCar = new Car(car.letter, car.startRow, car.startCol, car.endRow, car.endCol);
-                        newCar.startRow += step;
-                        newCar.endRow += step;
-                        successors.add(new JamConfig(updateCar(cars, newCar, index)));
+
+                for (int step = 1; car.endRow + step < numRows
+                        && field[car.endRow + step][car.endCol].equals("."); step++) {
+                    Car newCar = new Car(car.letter, car.startRow, car.startCol, car.endRow, car.endCol);
+                    newCar.startRow += step;
+                    newCar.endRow += step;
+                    if (!visitor.test(moved(car, newCar, index))) {
+                        return false;
+                    }
+                    if (!slide) {
+                        break;
                     }
                 }
             }
+            ++index;
         }
-        return successors;
+        return true;
+    }
+
+    /**
+     * The configuration after one car moved. Only the moved car's keys
+     * change, so the hash is updated instead of recomputed.
+     * @param car the car before the move
+     * @param newCar the car after the move
+     * @param index the car's index in the list
+     * @return the new configuration
+     */
+    private JamConfig moved(Car car, Car newCar, int index) {
+        return new JamConfig(spec, updateCar(cars, newCar, index), zobrist ^ zobrist(car) ^ zobrist(newCar));
+    }
+
+    /**
+     * Zobrist key of a car at its position
+     * @param car the car
+     * @return the key
+     */
+    private static long zobrist(Car car) {
+        return Zobrist.key(car.letter.hashCode(), ((long) car.startRow << 32) | car.startCol);
+    }
+
+    /**
+     * Zobrist hash of a whole set of cars
+     * @param cars the cars
+     * @return the XOR of their keys
+     */
+    private static long zobristOf(List<Car> cars) {
+        long hash = 0;
+        for (Car car: cars) {
+            hash ^= zobrist(car);
+        }
+        return hash;
+    }
+
+    /**
+     * A configuration of the same puzzle with different car positions.
+     * @param newCars a list of cars
+     * @return the new configuration
+     */
+    public JamConfig withCars(LinkedList<Car> newCars) {
+        return new JamConfig(spec, newCars);
     }
 
     /**
@@ -150,6 +252,38 @@ public class JamConfig implements Configuration {
         return newCars;
     }
 
+    /**
+     * Can a car slide several cells in one move?
+     * @return true in slide mode, false in unit-step mode
+     */
+    public boolean isSlide() {
+        return spec.isSlide();
+    }
+
+    /**
+     * the puzzle this configuration belongs to
+     * @return the shared spec
+     */
+    public JamSpec getSpec() {
+        return spec;
+    }
+
+    /**
+     * number of rows
+     * @return number of rows
+     */
+    public int getNumRows() {
+        return spec.getNumRows();
+    }
+
+    /**
+     * number of columns
+     * @return number of columns
+     */
+    public int getNumCols() {
+        return spec.getNumCols();
+    }
+
     /**
      * Is current configuration a goal?
      * @return true if Yes, false otherwise.
@@ -158,12 +292,78 @@ public class JamConfig implements Configuration {
     public boolean isGoal() {
         for (Car car: cars) {
             if (car.letter.equals("X")) {
-                return car.endCol == numCols - 1;
+                return car.endCol == spec.getNumCols() - 1;
             }
         }
         return false;
     }
 
+    /**
+     * Each car is encoded as its position along the axis it moves on,
+     * packed into as many longs as the cars need.
+     * @return number of longs in the encoding
+     */
+    @Override
+    public int encodedLength() {
+        int perWord = Long.SIZE / positionBits();
+        return (cars.size() + perWord - 1) / perWord;
+    }
+
+    /**
+     * Pack the position of every car, in list order.
+     * @param dest where to write the encoding
+     * @param offset index of the first word to write
+     */
+    @Override
+    public void encode(long[] dest, int offset) {
+        int bits = positionBits();
+        int perWord = Long.SIZE / bits;
+        Arrays.fill(dest, offset, offset + encodedLength(), 0L);
+        int i = 0;
+        for (Car car : cars) {
+            int position = car.startRow == car.endRow ? car.startCol : car.startRow;
+            dest[offset + i / perWord] |= (long) position << (i % perWord * bits);
+            ++i;
+        }
+    }
+
+    /**
+     * Rebuild a configuration from car positions, taking each car's letter,
+     * orientation and length from this configuration.
+     * @param src where to read the encoding
+     * @param offset index of the first word to read
+     * @return the decoded configuration
+     */
+    @Override
+    public JamConfig decode(long[] src, int offset) {
+        int bits = positionBits();
+        int perWord = Long.SIZE / bits;
+        long mask = (1L << bits) - 1;
+        LinkedList<Car> newCars = new LinkedList<>();
+        int i = 0;
+        for (Car car : cars) {
+            int position = (int) ((src[offset + i / perWord] >>> (i % perWord * bits)) & mask);
+            if (car.startRow == car.endRow) {
+                newCars.add(new Car(car.letter, car.startRow, position, car.endRow,
+                        position + car.endCol - car.startCol));
+            }
+            else {
+                newCars.add(new Car(car.letter, position, car.startCol,
+                        position + car.endRow - car.startRow, car.endCol));
+            }
+            ++i;
+        }
+        return withCars(newCars);
+    }
+
+    /**
+     * bit width of one car position
+     * @return enough bits for any row or column index
+     */
+    private int positionBits() {
+        return EncodableConfiguration.bitsFor(Math.max(spec.getNumRows(), spec.getNumCols()) - 1);
+    }
+
     /**
      * to string method
      * @return the output
@@ -171,8 +371,8 @@ public class JamConfig implements Configuration {
     @Override
     public String toString() {
         StringBuilder string = new StringBuilder();
-        for(int row = 0; row < numRows; row++) {
-            for(int col =0; col < numCols; col++) {
+        for(int row = 0; row < spec.getNumRows(); row++) {
+            for(int col =0; col < spec.getNumCols(); col++) {
                 string.append(field[row][col]);
                 string.append(" ");
             }
@@ -193,16 +393,16 @@ public class JamConfig implements Configuration {
         if (o == null || getClass() != o.getClass())
             return false;
         JamConfig that = (JamConfig) o;
-        return Arrays.deepEquals(field, that.field);
+        return zobrist == that.zobrist && Arrays.deepEquals(field, that.field);
     }
 
     /**
      * Hash code method
-     * @return the hash code
+     * @return the Zobrist hash of the car positions
      */
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(this.field);
+        return Zobrist.hashCode(zobrist);
     }
 
     /** car class */
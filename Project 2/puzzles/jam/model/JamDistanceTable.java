@@ -0,0 +1,386 @@
+package puzzles.jam.model;
+
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.LongKeyTable;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * The exact number of moves to the nearest goal from every configuration
+ * reachable from a Jam puzzle's start. It is built once per puzzle by
+ * enumerating the reachable configurations and then running a backward
+ * BFS from all goals among them; Jam moves are reversible, so
+ * predecessors are successors. Configurations are stored as their packed
+ * {@link JamConfig#encode encodings} in a {@link LongKeyTable}, with one
+ * short distance per configuration.
+ * <p>
+ * The table is saved next to the puzzle file. Each level of both phases
+ * is expanded in parallel, and the partial table is checkpointed to the
+ * same file, so an interrupted build picks up where it left off.
+ */
+public final class JamDistanceTable {
+    /** distance of a configuration from which no goal can be reached */
+    public static final int UNREACHABLE = -1;
+    /** file suffix appended to the puzzle file name */
+    public static final String SUFFIX = ".dist";
+
+    /** "JAMD" */
+    private static final int MAGIC = 0x4A414D44;
+    /** file format version */
+    private static final int VERSION = 1;
+    /** build phase: enumerating reachable configurations */
+    private static final int ENUMERATING = 1;
+    /** build phase: computing distances */
+    private static final int MEASURING = 2;
+    /** build phase: done */
+    private static final int COMPLETE = 3;
+    /** minimum time between checkpoints while building */
+    private static final long CHECKPOINT_MILLIS = 30_000;
+
+    /** the packed configurations, with ids in discovery order */
+    private final LongKeyTable keys;
+    /** moves to the nearest goal, indexed by id */
+    private short[] distances;
+    /** whether the table was built with slide moves */
+    private final boolean slide;
+    /** build phase this table has reached */
+    private int phase;
+    /** phase 1: first id of the unexpanded level; phase 2: next level to expand */
+    private int progress;
+
+    /**
+     * Create an empty table.
+     */
+    private JamDistanceTable(int width, boolean slide) {
+        this.keys = new LongKeyTable(width);
+        this.slide = slide;
+    }
+
+    /**
+     * The file a puzzle's table is kept in.
+     * @param puzzleFilename the name of the puzzle file
+     * @return the table file
+     */
+    public static Path fileFor(String puzzleFilename) {
+        return Paths.get(puzzleFilename + SUFFIX);
+    }
+
+    /**
+     * Build the table for a puzzle, or finish an interrupted build, and
+     * save it in the given file.
+     * @param start the start configuration of the puzzle
+     * @param file where the table is saved and checkpointed
+     * @param threads number of worker threads
+     * @return the complete table
+     * @throws IOException if the file can't be read or written
+     */
+    public static JamDistanceTable build(JamConfig start, Path file, int threads) throws IOException {
+        JamDistanceTable table = null;
+        if (Files.exists(file)) {
+            table = load(file);
+            if (!table.matches(start)) {
+                table = null;
+            }
+        }
+        if (table == null) {
+            table = new JamDistanceTable(start.encodedLength(), start.isSlide());
+            long[] key = new long[start.encodedLength()];
+            start.encode(key, 0);
+            table.keys.add(key, 0);
+            table.phase = ENUMERATING;
+            table.progress = 0;
+        }
+        if (table.phase != COMPLETE) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                table.finish(start, file, pool);
+            } finally {
+                pool.shutdown();
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Read a table file, complete or not. The file is mapped only while it
+     * is read: its keys are copied into an on-heap {@link LongKeyTable},
+     * so lookups never touch the file.
+     * @param file the table file
+     * @return the table
+     * @throws IOException if the file can't be read or is not a valid table
+     */
+    public static JamDistanceTable load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("not a Jam distance table: " + file);
+            }
+            int phase = buffer.getInt();
+            int progress = buffer.getInt();
+            boolean slide = buffer.getInt() != 0;
+            int width = buffer.getInt();
+            int count = buffer.getInt();
+            if (phase < ENUMERATING || phase > COMPLETE) {
+                throw new IOException("bad build phase " + phase + ": " + file);
+            }
+            long entryBytes = (long) width * Long.BYTES + (phase == ENUMERATING ? 0 : Short.BYTES);
+            if (width <= 0 || count <= 0 || (long) count * entryBytes > buffer.remaining()) {
+                throw new IOException("bad table size " + count + " x " + width + ": " + file);
+            }
+            if (progress < 0 || (phase == ENUMERATING ? progress > count : progress > Short.MAX_VALUE)) {
+                throw new IOException("bad build progress " + progress + ": " + file);
+            }
+            JamDistanceTable table = new JamDistanceTable(width, slide);
+            table.phase = phase;
+            table.progress = progress;
+            long[] key = new long[width];
+            LongBuffer stored = buffer.asLongBuffer();
+            for (int id = 0; id < count; id++) {
+                stored.get(key);
+                if (table.keys.add(key, 0) != id) {
+                    throw new IOException("duplicate configuration " + id + ": " + file);
+                }
+            }
+            buffer.position(buffer.position() + count * width * Long.BYTES);
+            if (phase != ENUMERATING) {
+                table.distances = new short[count];
+                buffer.asShortBuffer().get(table.distances);
+            }
+            return table;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Jam distance table ends too soon: " + file);
+        }
+    }
+
+    /**
+     * Load the complete table saved next to a puzzle file, if there is one
+     * that fits the given start configuration.
+     * @param puzzleFilename the name of the puzzle file
+     * @param start the start configuration of the puzzle
+     * @return the table, or null if there is no usable one
+     */
+    public static JamDistanceTable loadIfPresent(String puzzleFilename, JamConfig start) {
+        Path file = fileFor(puzzleFilename);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            JamDistanceTable table = load(file);
+            return table.phase == COMPLETE && table.matches(start) ? table : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Moves to the nearest goal.
+     * @param config a configuration of the puzzle
+     * @return the exact number of moves, or {@link #UNREACHABLE} if no goal
+     *         can be reached or the configuration is not in the table
+     */
+    public int distance(JamConfig config) {
+        long[] key = new long[keys.width()];
+        config.encode(key, 0);
+        int id = keys.find(key, 0);
+        return id < 0 ? UNREACHABLE : distances[id];
+    }
+
+    /**
+     * An optimal move.
+     * @param config a configuration of the puzzle
+     * @return a successor one move closer to a goal, or null if the
+     *         configuration is a goal or no goal can be reached
+     */
+    public JamConfig bestMove(JamConfig config) {
+        int distance = distance(config);
+        if (distance <= 0) {
+            return null;
+        }
+        for (Configuration successor : config.getSuccessors()) {
+            if (distance((JamConfig) successor) == distance - 1) {
+                return (JamConfig) successor;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * number of configurations in the table
+     * @return number of configurations reachable from the start
+     */
+    public int size() {
+        return keys.size();
+    }
+
+    /**
+     * Was the table built with slide moves?
+     * @return true for slide moves, false for unit steps
+     */
+    public boolean isSlide() {
+        return slide;
+    }
+
+    /**
+     * Does this table belong to the puzzle of the given start?
+     */
+    private boolean matches(JamConfig start) {
+        if (start.encodedLength() != keys.width() || start.isSlide() != slide || keys.size() == 0) {
+            return false;
+        }
+        long[] key = new long[keys.width()];
+        start.encode(key, 0);
+        return keys.find(key, 0) == 0;
+    }
+
+    /**
+     * Run the remaining build phases, checkpointing along the way.
+     */
+    private void finish(JamConfig start, Path file, ForkJoinPool pool) throws IOException {
+        long lastCheckpoint = System.currentTimeMillis();
+        int width = keys.width();
+        while (phase == ENUMERATING) {
+            int from = progress;
+            int to = keys.size();
+            if (from == to) {
+                distances = new short[keys.size()];
+                Arrays.fill(distances, (short) UNREACHABLE);
+                int[] goals = inPool(pool, () -> IntStream.range(0, keys.size()).parallel()
+                        .filter(id -> start.decode(keys.keys(), id * width).isGoal()).toArray());
+                for (int goal : goals) {
+                    distances[goal] = 0;
+                }
+                phase = MEASURING;
+                progress = 0;
+                break;
+            }
+            List<long[]> successors = inPool(pool, () -> IntStream.range(from, to).parallel()
+                    .mapToObj(id -> successorKeys(start, id)).toList());
+            for (long[] packed : successors) {
+                for (int offset = 0; offset < packed.length; offset += width) {
+                    keys.add(packed, offset);
+                }
+            }
+            progress = to;
+            lastCheckpoint = checkpointIfDue(file, lastCheckpoint);
+        }
+        int[] frontier = null;
+        while (phase == MEASURING) {
+            int level = progress;
+            if (frontier == null) {
+                // only when starting or resuming; later levels come from the loop
+                frontier = inPool(pool, () -> IntStream.range(0, keys.size()).parallel()
+                        .filter(id -> distances[id] == level).toArray());
+            }
+            int[] current = frontier;
+            if (current.length == 0) {
+                phase = COMPLETE;
+                break;
+            }
+            if (level + 1 > Short.MAX_VALUE) {
+                throw new IllegalStateException("distance exceeds " + Short.MAX_VALUE);
+            }
+            List<long[]> neighbors = inPool(pool, () -> Arrays.stream(current).parallel()
+                    .mapToObj(id -> successorKeys(start, id)).toList());
+            IntStream.Builder next = IntStream.builder();
+            for (long[] packed : neighbors) {
+                for (int offset = 0; offset < packed.length; offset += width) {
+                    int id = keys.find(packed, offset);
+                    if (distances[id] == UNREACHABLE) {
+                        distances[id] = (short) (level + 1);
+                        next.add(id);
+                    }
+                }
+            }
+            frontier = next.build().toArray();
+            progress = level + 1;
+            lastCheckpoint = checkpointIfDue(file, lastCheckpoint);
+        }
+        save(file);
+    }
+
+    /**
+     * The packed successors of the configuration with the given id.
+     */
+    private long[] successorKeys(JamConfig prototype, int id) {
+        int width = keys.width();
+        Collection<Configuration> successors = prototype.decode(keys.keys(), id * width).getSuccessors();
+        long[] packed = new long[successors.size() * width];
+        int offset = 0;
+        for (Configuration successor : successors) {
+            ((JamConfig) successor).encode(packed, offset);
+            offset += width;
+        }
+        return packed;
+    }
+
+    /**
+     * Save the table if the last checkpoint is old enough.
+     * @return the time of the last checkpoint
+     */
+    private long checkpointIfDue(Path file, long lastCheckpoint) throws IOException {
+        long now = System.currentTimeMillis();
+        if (now - lastCheckpoint < CHECKPOINT_MILLIS) {
+            return lastCheckpoint;
+        }
+        save(file);
+        return now;
+    }
+
+    /**
+     * Write the table to a temporary file and move it into place, so the
+     * file always holds a consistent table.
+     */
+    private void save(Path file) throws IOException {
+        Path partial = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(partial)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(phase);
+            out.writeInt(progress);
+            out.writeInt(slide ? 1 : 0);
+            out.writeInt(keys.width());
+            out.writeInt(keys.size());
+            long[] stored = keys.keys();
+            for (int i = 0; i < keys.size() * keys.width(); i++) {
+                out.writeLong(stored[i]);
+            }
+            if (phase != ENUMERATING) {
+                for (short distance : distances) {
+                    out.writeShort(distance);
+                }
+            }
+        }
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Run a parallel computation on the build's pool.
+     */
+    private static <T> T inPool(ForkJoinPool pool, Callable<T> task) {
+        try {
+            return pool.submit(task).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
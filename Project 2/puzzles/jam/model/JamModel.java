@@ -1,13 +1,20 @@
 package puzzles.jam.model;
 
 import puzzles.common.Observer;
+import puzzles.common.solver.CancellationToken;
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.SearchBudget;
+import puzzles.common.solver.SearchResult;
 import puzzles.common.solver.Solver;
 
 import java.io.FileNotFoundException;
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Definition for the model of a Jam game.
@@ -27,6 +34,28 @@ public class JamModel {
     private int sRow;
     /** selected column */
     private int sCol;
+    /** whether hints may slide a car several cells in one move */
+    private boolean slide;
+    /** precomputed distances for the loaded puzzle, or null */
+    private JamDistanceTable distanceTable;
+    /** distance recorded for a configuration that can't be solved */
+    private static final int NO_SOLUTION = -1;
+    /** the next move on a known solution, keyed by configuration */
+    private final Map<JamConfig, JamConfig> nextMoves = new HashMap<>();
+    /** moves left to the goal on a known solution, keyed by configuration */
+    private final Map<JamConfig, Integer> distances = new HashMap<>();
+    /** limits on a hint search, so a huge board can't run forever */
+    private static final SearchBudget HINT_BUDGET = SearchBudget.UNLIMITED
+            .withMaxTime(Duration.ofSeconds(30))
+            .withMaxMemory(Runtime.getRuntime().maxMemory() / 4 * 3);
+    /** runs hint searches off the thread that asked for them */
+    private final ExecutorService hintExecutor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "jam-hint");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** stops the hint search in progress, null if there is none */
+    private CancellationToken pendingHint;
 
     /**
      * JamModel Constructor
@@ -35,43 +64,187 @@ public class JamModel {
     }
 
     /**
-     * hint
+     * Choose between unit-step and slide moves for hints. In slide mode a
+     * hint may move a car any number of free cells at once.
+     * @param slide true for slide moves, false for one cell at a time
      */
-    public void hint() {
+    public synchronized void setSlide(boolean slide) {
+        this.slide = slide;
+        clearSolutions();
+        if (currentConfig != null) {
+            currentConfig = new JamConfig(currentConfig.getSpec().withSlide(slide), currentConfig.cars);
+        }
+    }
+
+    /**
+     * hint. The first hint solves the puzzle from the current configuration
+     * and remembers the whole solution, so later hints from any
+     * configuration on it are a map lookup instead of another search.
+     * The search runs in the background within {@link #HINT_BUDGET}, and
+     * the observers hear about the move when it is done.
+     */
+    public synchronized void hint() {
         String message;
 
         if (currentConfig.isGoal()) {
             message = "Already Solved!";
         }
-        else {
-            Solver solver = new Solver(currentConfig);
-            Optional<List<Configuration>> path = solver.BFS();
-            if (path.isEmpty()) {
+        else if (solvedTable() != null) {
+            JamConfig next = solvedTable().bestMove(currentConfig);
+            if (next == null) {
                 message = "No solution";
             }
-            else if (currentConfig.equals(path.get().get(0))) {
-                currentConfig = (JamConfig) path.get().get(1);
-                path.get().remove(0);
-                message = "Next Step";
-            }
             else {
-                path = solver.BFS();
-                currentConfig = (JamConfig) path.get().get(1);
-                path.get().remove(0);
-                message = "Next Step";
+                currentConfig = next;
+                message = withMovesToSolve("Next Step");
             }
         }
+        else if (pendingHint != null) {
+            message = "Still searching for a hint";
+        }
+        else if (!distances.containsKey(currentConfig)) {
+            CancellationToken token = new CancellationToken();
+            JamConfig start = currentConfig;
+            pendingHint = token;
+            hintExecutor.execute(() -> {
+                SearchResult result = new Solver(start).BFS(HINT_BUDGET, token);
+                finishHint(token, start, result);
+            });
+            message = "Searching for a hint...";
+        }
+        else {
+            message = nextStep();
+        }
         alertObservers(new JamClientData(message));
     }
 
+    /**
+     * Take the next move on the remembered solution from the current
+     * configuration.
+     * @return the message for the observers
+     */
+    private String nextStep() {
+        JamConfig next = nextMoves.get(currentConfig);
+        if (next == null) {
+            return "No solution";
+        }
+        currentConfig = next;
+        return "Next Step";
+    }
+
+    /**
+     * Called on the hint thread when a search ends. The result is only
+     * used if the board has not changed since the hint was asked for.
+     * @param token the token of the finished search
+     * @param start the configuration the search started from
+     * @param result how the search ended
+     */
+    private synchronized void finishHint(CancellationToken token, JamConfig start, SearchResult result) {
+        if (token != pendingHint) {
+            return;
+        }
+        pendingHint = null;
+        String message;
+        switch (result.status()) {
+            case SOLVED -> {
+                rememberSolution(result.path());
+                message = currentConfig.equals(start) ? nextStep() : "Hint found";
+            }
+            case NO_SOLUTION -> {
+                distances.put(start, NO_SOLUTION);
+                message = "No solution";
+            }
+            case BUDGET_EXHAUSTED -> message = "Gave up looking for a hint, the puzzle is too large";
+            default -> message = "Hint cancelled";
+        }
+        alertObservers(new JamClientData(message));
+    }
+
+    /**
+     * Stop the hint search in progress, if any. Its result is dropped.
+     */
+    private void cancelHint() {
+        if (pendingHint != null) {
+            pendingHint.cancel();
+            pendingHint = null;
+        }
+    }
+
+    /**
+     * Record the next move and the distance to the goal for every
+     * configuration on a solution path.
+     * @param path a shortest path ending in a goal
+     */
+    private void rememberSolution(List<Configuration> path) {
+        int remaining = path.size() - 1;
+        JamConfig previous = null;
+        for (Configuration configuration: path) {
+            JamConfig config = (JamConfig) configuration;
+            if (previous != null) {
+                nextMoves.put(previous, config);
+            }
+            distances.put(config, remaining--);
+            previous = config;
+        }
+    }
+
+    /**
+     * Number of moves left to solve the puzzle from the current
+     * configuration, if a previous hint has already found out.
+     * @return the number of moves, or -1 if it is not known yet or the
+     *         puzzle can't be solved from here
+     */
+    public int movesToSolve() {
+        if (solvedTable() != null) {
+            return solvedTable().distance(currentConfig);
+        }
+        return distances.getOrDefault(currentConfig, NO_SOLUTION);
+    }
+
+    /**
+     * The precomputed distance table, if one was saved next to the puzzle
+     * file for the current move mode.
+     * @return the table, or null
+     */
+    private JamDistanceTable solvedTable() {
+        if (distanceTable != null && distanceTable.isSlide() == slide) {
+            return distanceTable;
+        }
+        return null;
+    }
+
+    /**
+     * Add the number of moves left to a message when a distance table
+     * knows it.
+     * @param message the message
+     * @return the message, followed by the moves left if known
+     */
+    private String withMovesToSolve(String message) {
+        if (solvedTable() != null && movesToSolve() >= 0) {
+            return message + " (" + movesToSolve() + " moves to solve)";
+        }
+        return message;
+    }
+
+    /**
+     * Forget all remembered solutions.
+     */
+    private void clearSolutions() {
+        cancelHint();
+        nextMoves.clear();
+        distances.clear();
+    }
+
     /**
      * load a file (use in game)
      */
-    public void load(String filename) {
+    public synchronized void load(String filename) {
         String message;
+        clearSolutions();
         try {
-            this.currentConfig = new JamConfig(filename);
+            this.currentConfig = new JamConfig(filename, slide);
             this.filename = filename;
+            this.distanceTable = JamDistanceTable.loadIfPresent(filename, currentConfig);
             String[] name = filename.split("/");
             message = "Loaded: " + name[name.length - 1];
         } catch (FileNotFoundException e) {
@@ -83,7 +256,7 @@ public class JamModel {
     /**
      * select (use in game)
      */
-    public void select(int row, int col){
+    public synchronized void select(int row, int col){
         String message = " ";
 
         if (currentConfig.isGoal()) {
@@ -129,9 +302,9 @@ public class JamModel {
                             JamConfig.Car newCar = new JamConfig.Car(c.letter, c.startRow, c.startCol, c.endRow, c.endCol);
                             newCar.startCol -= 1;
                             newCar.endCol -= 1;
-                            currentConfig = new JamConfig(currentConfig.updateCar(currentConfig.cars, newCar, index));
+                            currentConfig = currentConfig.withCars(currentConfig.updateCar(currentConfig.cars, newCar, index));
                             selectValid = false;
-                            message = "move from (" + sRow + ", " + sCol + ") to (" + row + ", " + col + ")";
+                            message = withMovesToSolve("move from (" + sRow + ", " + sCol + ") to (" + row + ", " + col + ")");
 
                         }
                         else if (sCol < col) {
@@ -139,9 +312,9 @@ public class JamModel {
                             JamConfig.Car newCar = new JamConfig.Car(c.letter, c.startRow, c.startCol, c.endRow, c.endCol);
                             newCar.startCol += 1;
                             newCar.endCol += 1;
-                            currentConfig = new JamConfig(currentConfig.updateCar(currentConfig.cars, newCar, index));
+                            currentConfig = currentConfig.withCars(currentConfig.updateCar(currentConfig.cars, newCar, index));
                             selectValid = false;
-                            message = "move from (" + sRow + ", " + sCol + ") to (" + row + ", " + col + ")";
+                            message = withMovesToSolve("move from (" + sRow + ", " + sCol + ") to (" + row + ", " + col + ")");
                         }
                     }
                 }
@@ -156,9 +329,9 @@ public class JamModel {
                             JamConfig.Car newCar = new JamConfig.Car(c.letter, c.startRow, c.startCol, c.endRow, c.endCol);
                             newCar.startRow -= 1;
                             newCar.endRow -= 1;
-                            currentConfig = new JamConfig(currentConfig.updateCar(currentConfig.cars, newCar, index));
+                            currentConfig = currentConfig.withCars(currentConfig.updateCar(currentConfig.cars, newCar, index));
                             selectValid = false;
-                            message = "move from (" + sRow + ", " + sCol + ") to (" + row + ", " + col + ")";
+                            message = withMovesToSolve("move from (" + sRow + ", " + sCol + ") to (" + row + ", " + col + ")");
 
                         }
                         else if (sRow < row) {
@@ -166,9 +339,9 @@ public class JamModel {
                             JamConfig.Car newCar = new JamConfig.Car(c.letter, c.startRow, c.startCol, c.endRow, c.endCol);
                             newCar.startRow += 1;
                             newCar.endRow += 1;
-                            currentConfig = new JamConfig(currentConfig.updateCar(currentConfig.cars, newCar, index));
+                            currentConfig = currentConfig.withCars(currentConfig.updateCar(currentConfig.cars, newCar, index));
                             selectValid = false;
-                            message = "move from (" + sRow + ", " + sCol + ") to (" + row + ", " + col + ")";
+                            message = withMovesToSolve("move from (" + sRow + ", " + sCol + ") to (" + row + ", " + col + ")");
                         }
                     }
                 }
@@ -180,7 +353,7 @@ public class JamModel {
     /**
      * reset (use in game)
      */
-    public void reset(){
+    public synchronized void reset(){
         load(filename);
         alertObservers(new JamClientData("Puzzle Successfully Reset!"));
     }
@@ -200,13 +373,13 @@ public class JamModel {
     public String toString() {
         StringBuilder string = new StringBuilder();
         string.append("  ");
-        for (int i = 0; i < JamConfig.numCols; i++) {
+        for (int i = 0; i < currentConfig.getNumCols(); i++) {
             string.append(" ").append(i);
         }
         string.append("\n  ");
-        string.append("--".repeat(Math.max(0, JamConfig.numCols)));
+        string.append("--".repeat(Math.max(0, currentConfig.getNumCols())));
         string.append("\n");
-        for (int i = 0; i < JamConfig.numRows; i++) {
+        for (int i = 0; i < currentConfig.getNumRows(); i++) {
             string.append(i).append("|");
             for (String s : currentConfig.field[i]) {
                 string.append(" ").append(s);
@@ -217,7 +390,13 @@ public class JamModel {
     }
 
     /**
-     * The view calls this to add itself as an observer.
+     * The view calls this to add itself as an observer. Observers are
+     * called on the thread that changed the model: the caller's thread
+     * for load, select, hint and reset, but the background hint thread
+     * when a hint search finishes. An observer that has to run on one
+     * particular thread (the JavaFX application thread, or the thread
+     * reading commands) must hand the update over to it or otherwise
+     * guard against being called from another thread.
      *
      * @param observer the view
      */
@@ -227,7 +406,7 @@ public class JamModel {
 
     /**
      * The model's state has changed (the counter), so inform the view via
-     * the update method
+     * the update method. Runs on whichever thread changed the model.
      */
     private void alertObservers(JamClientData data) {
         for (var observer : observers) {
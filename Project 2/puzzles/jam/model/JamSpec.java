@@ -0,0 +1,73 @@
+package puzzles.jam.model;
+
+/**
+ * The parts of a Jam puzzle that never change while it is played or
+ * solved. Every configuration of a puzzle shares one spec, so puzzles of
+ * different sizes can be solved side by side in one JVM and a
+ * configuration only carries its own cars.
+ */
+public final class JamSpec {
+    /** number of rows */
+    private final int numRows;
+    /** number of columns */
+    private final int numCols;
+    /** number of cars */
+    private final int numCars;
+    /** whether a car may slide several cells in one move */
+    private final boolean slide;
+
+    /**
+     * Describe a puzzle.
+     * @param numRows number of rows
+     * @param numCols number of columns
+     * @param numCars number of cars
+     * @param slide true to let a car slide several cells in one move
+     */
+    public JamSpec(int numRows, int numCols, int numCars, boolean slide) {
+        this.numRows = numRows;
+        this.numCols = numCols;
+        this.numCars = numCars;
+        this.slide = slide;
+    }
+
+    /**
+     * The same puzzle with a different move mode.
+     * @param slide true to let a car slide several cells in one move
+     * @return a spec for the same board
+     */
+    public JamSpec withSlide(boolean slide) {
+        return slide == this.slide ? this : new JamSpec(numRows, numCols, numCars, slide);
+    }
+
+    /**
+     * number of rows
+     * @return number of rows
+     */
+    public int getNumRows() {
+        return numRows;
+    }
+
+    /**
+     * number of columns
+     * @return number of columns
+     */
+    public int getNumCols() {
+        return numCols;
+    }
+
+    /**
+     * number of cars
+     * @return number of cars
+     */
+    public int getNumCars() {
+        return numCars;
+    }
+
+    /**
+     * Can a car slide several cells in one move?
+     * @return true in slide mode, false in unit-step mode
+     */
+    public boolean isSlide() {
+        return slide;
+    }
+}
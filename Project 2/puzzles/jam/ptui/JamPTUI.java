@@ -7,8 +7,13 @@ import java.util.Scanner;
 
 public class JamPTUI implements Observer<JamModel, JamClientData> {
 
+    /** the prompt for the next command */
+    private static final String PROMPT = "Jam game command: ";
+
     /** JamModel */
     private JamModel model;
+    /** the thread reading commands, null until the command loop starts */
+    private volatile Thread inputThread;
 
     /**
      * Construct the JamPTUI
@@ -36,8 +41,11 @@ public class JamPTUI implements Observer<JamModel, JamClientData> {
         Scanner in = new Scanner(System.in);
         displayHelp();
         System.out.println();
+        inputThread = Thread.currentThread();
         for ( ; ; ) {
-            System.out.print("Jam game command: ");
+            synchronized (System.out) {
+                System.out.print(PROMPT);
+            }
             String[] words = in.nextLine().split(" ");
             if (words.length > 0) {
                 if (words[0].startsWith("h") || words[0].startsWith("H")) {
@@ -65,15 +73,26 @@ public class JamPTUI implements Observer<JamModel, JamClientData> {
     }
 
     /**
-     * update method
+     * update method. A finished hint search calls this from the model's
+     * hint thread while the command loop is waiting at the prompt, so the
+     * update is printed on lines of its own and the prompt is shown again.
      *
      * @param jamModel jamModel
      * @param jamClientData jamClientData
      */
     @Override
     public void update(JamModel jamModel, JamClientData jamClientData) {
-        System.out.println(jamClientData);
-        System.out.println(jamModel);
+        boolean background = inputThread != null && Thread.currentThread() != inputThread;
+        synchronized (System.out) {
+            if (background) {
+                System.out.println();
+            }
+            System.out.println(jamClientData);
+            System.out.println(jamModel);
+            if (background) {
+                System.out.print(PROMPT);
+            }
+        }
     }
 
     /**
@@ -1,10 +1,15 @@
 package puzzles.jam.solver;
 
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.EncodableConfiguration;
+import puzzles.common.solver.ExternalSolver;
+import puzzles.common.solver.ProgressReporter;
 import puzzles.common.solver.Solver;
+import puzzles.jam.model.JamBitboard;
 import puzzles.jam.model.JamConfig;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,23 +21,46 @@ public class Jam {
 
     /**
      * main function
-     * @param args the arguments
+     * @param args the file name, optionally preceded by -bitboard to solve
+     *             with the compact {@link JamBitboard} representation and
+     *             -slide to let a car move several cells in one step and
+     *             -external to keep the search on disk, using a quarter
+     *             of the heap for buffers
      * @throws IOException exception
      */
     public static void main(String[] args) throws IOException {
-        if (args.length != 1) {
-            System.out.println("Usage: java Jam filename");
+        List<String> options = Arrays.asList(args).subList(0, Math.max(0, args.length - 1));
+        boolean bitboard = options.contains("-bitboard");
+        boolean slide = options.contains("-slide");
+        boolean external = options.contains("-external");
+        if (args.length < 1 || options.stream().anyMatch(o -> !List.of("-bitboard", "-slide", "-external").contains(o))) {
+            System.out.println("Usage: java Jam [-bitboard] [-slide] [-external] filename");
             System.exit(-1);
         }
         else {
-            JamConfig jamConfig = new JamConfig(args[0]);
-            Solver solver = new Solver(jamConfig);
-            Optional<List<Configuration>> path = solver.BFS();
+            String filename = args[args.length - 1];
+            EncodableConfiguration jamConfig = bitboard ? new JamBitboard(filename, slide) : new JamConfig(filename, slide);
+            Optional<List<Configuration>> path;
+            long total;
+            long unique;
+            if (external) {
+                ExternalSolver solver = new ExternalSolver(jamConfig, Runtime.getRuntime().maxMemory() / 4);
+                path = solver.BFS();
+                total = solver.getTotalCount();
+                unique = solver.getUniqueCount();
+            }
+            else {
+                Solver solver = new Solver(jamConfig);
+                solver.setListener(new ProgressReporter());
+                path = solver.BFS();
+                total = solver.getTotalCount();
+                unique = solver.getUniqueCount();
+            }
 
-            System.out.println("File: " + args[0]);
+            System.out.println("File: " + filename);
             System.out.print(jamConfig);
-            System.out.println("Total configs:" + solver.getTotalCount());
-            System.out.println("Unique configs:" + solver.getUniqueCount());
+            System.out.println("Total configs:" + total);
+            System.out.println("Unique configs:" + unique);
 
             if (path.isEmpty()) {
                 System.out.println("No Solution!");
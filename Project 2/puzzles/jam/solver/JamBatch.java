@@ -0,0 +1,42 @@
+package puzzles.jam.solver;
+
+import puzzles.common.BatchSolver;
+import puzzles.jam.model.JamDistanceTable;
+
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * Solves every Jam puzzle file in a directory at once, as a batch of
+ * {@link BatchSolver} jobs numbered in file name order. Each puzzle's
+ * configurations share their own spec, so the puzzles don't interfere
+ * with each other. Distance tables kept next to the puzzles are skipped.
+ */
+public class JamBatch {
+
+    /**
+     * main function
+     * @param args the directory, optionally followed by a thread count
+     */
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            System.out.println("Usage: java JamBatch directory [threads]");
+            System.exit(-1);
+        }
+        File[] files = new File(args[0]).listFiles(file ->
+                file.isFile() && !file.getName().endsWith(JamDistanceTable.SUFFIX));
+        if (files == null) {
+            System.out.println("Not a directory: " + args[0]);
+            System.exit(-1);
+        }
+        Arrays.sort(files);
+        int threads = args.length == 2 ? Integer.parseInt(args[1])
+                : Runtime.getRuntime().availableProcessors();
+
+        BatchSolver batch = new BatchSolver(threads, System.out, false);
+        for (int i = 0; i < files.length; i++) {
+            batch.submit(i + 1, new String[] {"jam", files[i].getPath()});
+        }
+        batch.finish();
+    }
+}
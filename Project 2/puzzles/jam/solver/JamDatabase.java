@@ -0,0 +1,54 @@
+package puzzles.jam.solver;
+
+import puzzles.jam.model.JamConfig;
+import puzzles.jam.model.JamDistanceTable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Builds the distance table for a Jam puzzle and saves it next to the
+ * puzzle file, where the Jam model picks it up. Rerunning it after an
+ * interruption resumes the build from its last checkpoint.
+ */
+public class JamDatabase {
+
+    /**
+     * main function
+     * @param args [-slide] [-threads n] filename
+     * @throws IOException if the table file can't be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        boolean slide = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int arg = 0;
+        while (arg < args.length - 1) {
+            if (args[arg].equals("-slide")) {
+                slide = true;
+                ++arg;
+            }
+            else if (args[arg].equals("-threads") && arg + 2 < args.length) {
+                threads = Integer.parseInt(args[arg + 1]);
+                arg += 2;
+            }
+            else {
+                break;
+            }
+        }
+        if (arg != args.length - 1) {
+            System.out.println("Usage: java JamDatabase [-slide] [-threads n] filename");
+            System.exit(-1);
+        }
+
+        String filename = args[arg];
+        JamConfig start = new JamConfig(filename, slide);
+        Path file = JamDistanceTable.fileFor(filename);
+        long begin = System.nanoTime();
+        JamDistanceTable table = JamDistanceTable.build(start, file, threads);
+        System.out.println("File: " + filename);
+        System.out.println("Table: " + file);
+        System.out.println("Reachable configs:" + table.size());
+        System.out.println("Moves to solve:" + table.distance(start));
+        System.out.printf("Built in %.2f s%n", (System.nanoTime() - begin) / 1e9);
+    }
+}
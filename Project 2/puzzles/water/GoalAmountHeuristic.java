@@ -0,0 +1,22 @@
+package puzzles.water;
+
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.Heuristic;
+
+/**
+ * Water estimate: one more move is needed unless some bucket already
+ * holds the goal amount. How far a bucket is from the goal can't be
+ * used directly, since a single fill, empty or pour can change a bucket
+ * by any amount and the estimate would no longer be admissible.
+ */
+public class GoalAmountHeuristic implements Heuristic<Configuration> {
+    /**
+     * Estimate the remaining moves.
+     * @param config a WaterConfiguration
+     * @return 0 for a goal; 1 otherwise
+     */
+    @Override
+    public int estimate(Configuration config) {
+        return config.isGoal() ? 0 : 1;
+    }
+}
@@ -1,6 +1,7 @@
 package puzzles.water;
 
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.ProgressReporter;
 import puzzles.common.solver.Solver;
 
 import java.util.Arrays;
@@ -34,6 +35,7 @@ public class Water {
             System.out.println("Amount: " + args[0] + ", " + "Buckets:" + Arrays.toString(capacities));
 
             Solver solver = new Solver(water);
+            solver.setListener(new ProgressReporter());
             Optional<List<Configuration>> path = solver.BFS();
 
             if (path.isEmpty()) {
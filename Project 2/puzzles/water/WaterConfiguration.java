@@ -1,30 +1,90 @@
 package puzzles.water;
 
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.EncodableConfiguration;
+import puzzles.common.solver.ReversibleConfiguration;
+import puzzles.common.solver.Zobrist;
 
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.*;
+import java.util.function.Predicate;
 
-public class WaterConfiguration implements Configuration{
-    /** the goal amount */
-    private static int goal;
+public class WaterConfiguration implements EncodableConfiguration, ReversibleConfiguration {
+    /** the goal and capacities, shared by every configuration of the puzzle */
+    private final WaterSpec spec;
     /** Buckets */
     private final int[] Buckets;
-    /** Capacities */
-    private static int[] capacities;
+    /** Zobrist hash of the bucket amounts, updated move by move */
+    private final long zobrist;
 
     public WaterConfiguration(int goal, int[] capacities) {
-        WaterConfiguration.goal = goal;
-        WaterConfiguration.capacities = capacities;
-        Buckets = new int[capacities.length];
+        this(new WaterSpec(goal, capacities));
+    }
+
+    /**
+     * The start configuration of a puzzle: every bucket empty.
+     * @param spec the puzzle
+     */
+    public WaterConfiguration(WaterSpec spec) {
+        this.spec = spec;
+        Buckets = new int[spec.capacities.length];
+        zobrist = zobristOf(Buckets);
     }
 
     public WaterConfiguration(Configuration waterConfig, int[] bucket) {
-        int[] j = new int[capacities.length];
-        System.arraycopy(((WaterConfiguration)waterConfig).getBuckets(),0, j,0, capacities.length);
-        Buckets = bucket;
+        this(((WaterConfiguration) waterConfig).spec, bucket, zobristOf(bucket));
+    }
+
+    /**
+     * A configuration with a known hash.
+     * @param spec the puzzle
+     * @param bucket the amount in each bucket
+     * @param zobrist the Zobrist hash of the amounts
+     */
+    private WaterConfiguration(WaterSpec spec, int[] bucket, long zobrist) {
+        this.spec = spec;
+        this.Buckets = bucket;
+        this.zobrist = zobrist;
+    }
+
+    /**
+     * The configuration after a move changed one or two buckets. Only the
+     * changed buckets' keys are swapped, so the hash is updated instead of
+     * recomputed.
+     * @param bucket the amounts after the move
+     * @param i a changed bucket
+     * @param j the other changed bucket, or i if only one changed
+     * @return the new configuration
+     */
+    private WaterConfiguration moved(int[] bucket, int i, int j) {
+        long hash = zobrist ^ Zobrist.key(i, Buckets[i]) ^ Zobrist.key(i, bucket[i]);
+        if (j != i) {
+            hash ^= Zobrist.key(j, Buckets[j]) ^ Zobrist.key(j, bucket[j]);
+        }
+        return new WaterConfiguration(spec, bucket, hash);
+    }
+
+    /**
+     * Zobrist hash of a set of amounts
+     * @param bucket the amount in each bucket
+     * @return the XOR of one key per bucket and amount
+     */
+    private static long zobristOf(int[] bucket) {
+        long hash = 0;
+        for (int i = 0; i < bucket.length; i++) {
+            hash ^= Zobrist.key(i, bucket[i]);
+        }
+        return hash;
+    }
+
+    /**
+     * the puzzle this configuration belongs to
+     * @return the shared spec
+     */
+    public WaterSpec getSpec() {
+        return spec;
     }
 
     public int[] getBuckets() {
@@ -32,51 +92,284 @@ public class WaterConfiguration implements Configuration{
     }
 
     public Collection<Configuration> getSuccessors() {
-        HashSet<Configuration> neighbors = new HashSet<>();
+        List<Configuration> neighbors = new ArrayList<>();
+        visitSuccessors(neighbors::add);
+        return neighbors;
+    }
+
+    /**
+     * Hand the successors to a visitor one at a time: fill, empty and pour
+     * into every other bucket, for each bucket. A move that changes
+     * nothing leads back to this configuration, so this configuration is
+     * handed over once, at the end, if any move changed nothing; every
+     * other move leads somewhere different.
+     * @param visitor called on each successor; returns false to stop
+     * @return true if every successor was visited, false if the visitor stopped
+     */
+    @Override
+    public boolean visitSuccessors(Predicate<? super Configuration> visitor) {
+        boolean unchanged = false;
         for (int i = 0; i < Buckets.length; i++) {
-            int[] bucket = Arrays.copyOf(Buckets, Buckets.length);
-            bucket[i] = capacities[i];
-            neighbors.add(new WaterConfiguration(this, bucket));
+            if (Buckets[i] != spec.capacities[i]) {
+                int[] bucket = Arrays.copyOf(Buckets, Buckets.length);
+                bucket[i] = spec.capacities[i];
+                if (!visitor.test(moved(bucket, i, i))) {
+                    return false;
+                }
+            }
+            else {
+                unchanged = true;
+            }
 
-            int[] bucket1 = Arrays.copyOf(Buckets, Buckets.length);
-            bucket1[i] = 0;
-            neighbors.add(new WaterConfiguration(this, bucket1));
+            if (Buckets[i] != 0) {
+                int[] bucket1 = Arrays.copyOf(Buckets, Buckets.length);
+                bucket1[i] = 0;
+                if (!visitor.test(moved(bucket1, i, i))) {
+                    return false;
+                }
+            }
+            else {
+                unchanged = true;
+            }
 
             for (int j = 0; j < Buckets.length; j++) {
                 if (i != j) {
+                    int pourAmount = Math.min(spec.capacities[j] - Buckets[j], Buckets[i]);
+                    if (pourAmount == 0) {
+                        unchanged = true;
+                        continue;
+                    }
                     int[] num = Arrays.copyOf(Buckets, Buckets.length);
-                    int pourAmount = Math.min(capacities[j] - num[j], num[i]);
                     num[j] += pourAmount;
                     num[i] -= pourAmount;
+                    if (!visitor.test(moved(num, i, j))) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return !unchanged || visitor.test(this);
+    }
 
-                    neighbors.add(new WaterConfiguration(this, num));
+    /**
+     * Undo every move. A full or empty bucket may have held any amount
+     * before it was filled or emptied, and a pour from i into j can only
+     * have ended with i empty or j full.
+     * @return all predecessors
+     */
+    @Override
+    public Collection<Configuration> getPredecessors() {
+        HashSet<Configuration> predecessors = new HashSet<>();
+        for (int i = 0; i < Buckets.length; i++) {
+            if (Buckets[i] == spec.capacities[i] || Buckets[i] == 0) {
+                for (int amount = 0; amount <= spec.capacities[i]; amount++) {
+                    int[] bucket = Arrays.copyOf(Buckets, Buckets.length);
+                    bucket[i] = amount;
+                    predecessors.add(new WaterConfiguration(this, bucket));
+                }
+            }
+
+            for (int j = 0; j < Buckets.length; j++) {
+                if (i != j && (Buckets[i] == 0 || Buckets[j] == spec.capacities[j])) {
+                    for (int pourAmount = 0; pourAmount <= Buckets[j]
+                            && Buckets[i] + pourAmount <= spec.capacities[i]; pourAmount++) {
+                        int[] num = Arrays.copyOf(Buckets, Buckets.length);
+                        num[i] += pourAmount;
+                        num[j] -= pourAmount;
+                        predecessors.add(new WaterConfiguration(this, num));
+                    }
                 }
             }
         }
-        return neighbors;
+        return predecessors;
+    }
+
+    /**
+     * Enumerate the goals that might be reached. Every move leaves some
+     * bucket empty or full, so apart from this configuration only
+     * combinations of amounts with a bucket holding the goal amount and
+     * a bucket that is empty or full are listed. That is necessary for
+     * a goal to be reached but not enough: many listed goals can't be,
+     * and the list still grows with the product of the capacities of
+     * the other buckets. {@link #goalCount()} says how long it will be.
+     * @return every goal that passes the check
+     */
+    @Override
+    public Collection<Configuration> getGoals() {
+        List<Configuration> goals = new ArrayList<>();
+        addGoals(new int[Buckets.length], 0, false, false, goals);
+        if (isGoal() && !hasEmptyOrFull(Buckets)) {
+            goals.add(this);
+        }
+        return goals;
+    }
+
+    /**
+     * Count the goals {@link #getGoals()} lists. Working from the last
+     * bucket back, ways[g][e] is the number of ways to fill the buckets
+     * from i on so that the whole goal has the goal amount and an empty
+     * or full bucket, given whether the buckets before i already do.
+     * @return the number of goals, Long.MAX_VALUE if it is larger
+     */
+    @Override
+    public long goalCount() {
+        double[][] ways = {{0, 0}, {0, 1}};
+        for (int i = Buckets.length - 1; i >= 0; i--) {
+            int capacity = spec.capacities[i];
+            // how many amounts of this bucket are the goal, an end, both, or neither
+            boolean goalFits = spec.goal >= 0 && spec.goal <= capacity;
+            int both = goalFits && (spec.goal == 0 || spec.goal == capacity) ? 1 : 0;
+            int goalOnly = goalFits ? 1 - both : 0;
+            int endOnly = (capacity == 0 ? 1 : 2) - both;
+            int neither = capacity + 1 - both - goalOnly - endOnly;
+            double[][] before = new double[2][2];
+            for (int g = 0; g < 2; g++) {
+                for (int e = 0; e < 2; e++) {
+                    before[g][e] = both * ways[1][1] + goalOnly * ways[1][e]
+                            + endOnly * ways[g][1] + neither * ways[g][e];
+                }
+            }
+            ways = before;
+        }
+        double count = ways[0][0];
+        if (isGoal() && !hasEmptyOrFull(Buckets)) {
+            count++;
+        }
+        return (long) count;
+    }
+
+    /**
+     * Fill in the remaining buckets of a goal in every way that can still
+     * hold the goal amount and an empty or full bucket.
+     * @param bucket the amounts chosen so far
+     * @param i the next bucket to choose
+     * @param hasGoal whether a chosen bucket holds the goal amount
+     * @param hasEnd whether a chosen bucket is empty or full
+     * @param goals where finished goals go
+     */
+    private void addGoals(int[] bucket, int i, boolean hasGoal, boolean hasEnd,
+                          List<Configuration> goals) {
+        if (!canFinish(i, hasGoal, hasEnd)) {
+            return;
+        }
+        if (i == bucket.length) {
+            goals.add(new WaterConfiguration(this, bucket.clone()));
+            return;
+        }
+        for (int amount = 0; amount <= spec.capacities[i]; amount++) {
+            bucket[i] = amount;
+            addGoals(bucket, i + 1, hasGoal || amount == spec.goal,
+                    hasEnd || amount == 0 || amount == spec.capacities[i], goals);
+        }
+    }
+
+    /**
+     * Can the buckets from i on still complete a goal? Any bucket can be
+     * left empty, so the only question is where the goal amount fits.
+     * @param i the next bucket to choose
+     * @param hasGoal whether a chosen bucket holds the goal amount
+     * @param hasEnd whether a chosen bucket is empty or full
+     * @return true if some way of filling the rest is a goal
+     */
+    private boolean canFinish(int i, boolean hasGoal, boolean hasEnd) {
+        int remaining = Buckets.length - i;
+        if (hasGoal) {
+            return hasEnd || remaining > 0;
+        }
+        for (int j = i; j < Buckets.length; j++) {
+            if (spec.capacities[j] >= spec.goal && (hasEnd || remaining > 1
+                    || spec.goal == 0 || spec.goal == spec.capacities[j])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Is some bucket empty or full?
+     * @param bucket the amount in each bucket
+     * @return true if one is
+     */
+    private boolean hasEmptyOrFull(int[] bucket) {
+        for (int i = 0; i < bucket.length; i++) {
+            if (bucket[i] == 0 || bucket[i] == spec.capacities[i]) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
     public boolean isGoal() {
         for (int i = 0; i < Buckets.length; ++i) {
-            if (Buckets[i] == goal) {
+            if (Buckets[i] == spec.goal) {
                 return true;
             }
         }
         return false;
     }
 
+    /**
+     * Buckets of equal capacity are interchangeable, so the representative
+     * holds the amounts of each such group in ascending order.
+     * @return the representative
+     */
+    @Override
+    public Configuration canonicalize() {
+        int[] bucket = null;
+        for (int[] group: spec.symmetricGroups) {
+            for (int i = 1; i < group.length; i++) {
+                if (Buckets[group[i - 1]] > Buckets[group[i]]) {
+                    if (bucket == null) {
+                        bucket = Arrays.copyOf(Buckets, Buckets.length);
+                    }
+                    int[] amounts = new int[group.length];
+                    for (int j = 0; j < group.length; j++) {
+                        amounts[j] = bucket[group[j]];
+                    }
+                    Arrays.sort(amounts);
+                    for (int j = 0; j < group.length; j++) {
+                        bucket[group[j]] = amounts[j];
+                    }
+                    break;
+                }
+            }
+        }
+        return bucket == null ? this : new WaterConfiguration(this, bucket);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         WaterConfiguration that = (WaterConfiguration) o;
-        return Arrays.equals(Buckets, that.Buckets);
+        return zobrist == that.zobrist && Arrays.equals(Buckets, that.Buckets);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.hashCode(Buckets);
+        return Zobrist.hashCode(zobrist);
+    }
+
+    /**
+     * Each bucket takes just enough bits for its capacity.
+     * @return number of longs in the encoding
+     */
+    @Override
+    public int encodedLength() {
+        return EncodableConfiguration.wordsFor(spec.bucketBits);
+    }
+
+    @Override
+    public void encode(long[] dest, int offset) {
+        EncodableConfiguration.pack(Buckets, spec.bucketBits, dest, offset);
+    }
+
+    @Override
+    public WaterConfiguration decode(long[] src, int offset) {
+        int[] bucket = new int[Buckets.length];
+        EncodableConfiguration.unpack(src, offset, spec.bucketBits, bucket);
+        return new WaterConfiguration(this, bucket);
     }
 
     @Override
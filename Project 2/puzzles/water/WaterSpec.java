@@ -0,0 +1,62 @@
+package puzzles.water;
+
+import puzzles.common.solver.EncodableConfiguration;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The parts of a Water puzzle that never change while it is solved: the
+ * goal amount and the bucket capacities. Every configuration of a puzzle
+ * shares one spec, so several puzzles can be solved at once in one JVM.
+ */
+public final class WaterSpec {
+    /** the goal amount */
+    final int goal;
+    /** Capacities */
+    final int[] capacities;
+    /** bit width of each bucket in the encoding */
+    final int[] bucketBits;
+    /** indices of buckets sharing a capacity, for every capacity held by two or more */
+    final int[][] symmetricGroups;
+
+    /**
+     * Describe a puzzle.
+     * @param goal the goal amount
+     * @param capacities the capacity of each bucket
+     */
+    public WaterSpec(int goal, int[] capacities) {
+        this.goal = goal;
+        this.capacities = capacities.clone();
+        this.bucketBits = new int[capacities.length];
+        for (int i = 0; i < capacities.length; i++) {
+            bucketBits[i] = EncodableConfiguration.bitsFor(capacities[i]);
+        }
+        Map<Integer, List<Integer>> byCapacity = new LinkedHashMap<>();
+        for (int i = 0; i < capacities.length; i++) {
+            byCapacity.computeIfAbsent(capacities[i], c -> new ArrayList<>()).add(i);
+        }
+        this.symmetricGroups = byCapacity.values().stream()
+                .filter(group -> group.size() > 1)
+                .map(group -> group.stream().mapToInt(Integer::intValue).toArray())
+                .toArray(int[][]::new);
+    }
+
+    /**
+     * the goal amount
+     * @return the goal amount
+     */
+    public int getGoal() {
+        return goal;
+    }
+
+    /**
+     * the capacity of each bucket
+     * @return a copy of the capacities
+     */
+    public int[] getCapacities() {
+        return capacities.clone();
+    }
+}